@@ -0,0 +1,251 @@
+import java.util.Arrays;
+
+/**
+ * This class holds the structure shared by red black trees that store their nodes in
+ * parallel arrays: the left, right and parent links and the color of each node, indexed
+ * by an int node handle. It implements the rotations and red property repair on those
+ * arrays, following BSTRotation and RedBlackTree, while subclasses store the values that
+ * belong to each node and decide where new nodes are placed.
+ */
+public abstract class AbstractArrayRedBlackTree {
+
+    // handle used in place of a null node reference
+    protected static final int NIL = -1;
+
+    // number of nodes the arrays can hold before the first time they grow
+    protected static final int INITIAL_CAPACITY = 16;
+
+    // node links and colors, indexed by node handle
+    protected int[] left;
+    protected int[] right;
+    protected int[] parent;
+    protected boolean[] red;
+
+    // handle of the root node, or NIL when the tree is empty
+    protected int root = NIL;
+
+    // number of nodes in use, which is also the handle of the next node allocated
+    protected int size = 0;
+
+    /**
+     * Replaces the node arrays with empty arrays of the provided capacity. Subclasses
+     * that keep arrays of values override this to replace those too.
+     */
+    protected void allocate(int capacity) {
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        red = new boolean[capacity];
+    }
+
+    /**
+     * Copies the node arrays into arrays of the provided capacity. Subclasses that keep
+     * arrays of values override this to copy those too.
+     */
+    protected void resize(int capacity) {
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        red = Arrays.copyOf(red, capacity);
+    }
+
+    /**
+     * Allocates a new red node with no parent or children, growing the arrays if needed.
+     * @return the handle of the new node
+     */
+    protected int newNode() {
+        if (size == left.length) {
+            resize(left.length * 2);
+        }
+        int node = size++;
+        left[node] = NIL;
+        right[node] = NIL;
+        parent[node] = NIL;
+        red[node] = true;
+        return node;
+    }
+
+    /**
+     * Attaches a new node below up, or as the root when up is NIL, and then restores the
+     * red black properties.
+     * @param node the handle of a node returned by newNode
+     * @param up the handle of the node's parent, or NIL if the tree is empty
+     * @param asRightChild whether node becomes the right child of up
+     */
+    protected void attach(int node, int up, boolean asRightChild) {
+        parent[node] = up;
+        if (up == NIL) {
+            root = node;
+        } else if (asRightChild) {
+            right[up] = node;
+        } else {
+            left[up] = node;
+        }
+
+        ensureRedProperty(node);
+
+        // the root is black after all insertions
+        red[root] = false;
+    }
+
+    /**
+     * Repairs any red property violation caused by a red node having a red parent,
+     * following the same cases as RedBlackTree.ensureRedProperty.
+     * @param newRedNode a newly inserted red node, or a node turned red by previous repair
+     */
+    protected void ensureRedProperty(int newRedNode) {
+        while (true) {
+            // Case 1 - the node is the root, and is made black after insert
+            if (newRedNode == root) {
+                return;
+            }
+
+            // Case 2 - if the parent is black there is no violation
+            int up = parent[newRedNode];
+            if (!red[up]) {
+                return;
+            }
+
+            // a red parent is never the root, so the grandparent exists
+            int grandparent = parent[up];
+            boolean parentIsLeft = left[grandparent] == up;
+            int aunt = parentIsLeft ? right[grandparent] : left[grandparent];
+
+            // Case 3 - red aunt, swap colors and continue the repair from the grandparent
+            if (aunt != NIL && red[aunt]) {
+                red[aunt] = false;
+                red[up] = false;
+                red[grandparent] = true;
+                newRedNode = grandparent;
+                continue;
+            }
+
+            // Case 4 - black or missing aunt
+            boolean childIsLeft = left[up] == newRedNode;
+            if (childIsLeft == parentIsLeft) {
+                // Black Line Case - rotate parent and grandparent, swap colors
+                rotate(up, grandparent);
+                red[grandparent] = true;
+                red[up] = false;
+            } else {
+                // Black Zig Case - rotate the child up twice
+                rotate(newRedNode, up);
+                rotate(newRedNode, grandparent);
+                red[newRedNode] = false;
+                red[grandparent] = true;
+            }
+            return;
+        }
+    }
+
+    /**
+     * Performs a rotation of the provided nodes, as in BSTRotation.rotate: a right
+     * rotation when child is the left child of parent, and a left rotation when child is
+     * the right child of parent. Only the link arrays change, the nodes keep their handles.
+     * @param child the handle of the node being rotated from child to parent position
+     * @param parent the handle of the node being rotated from parent to child position
+     * @throws IllegalArgumentException when the provided nodes are not child and parent
+     */
+    protected void rotate(int child, int parent) throws IllegalArgumentException {
+        if (child == NIL || parent == NIL) {
+            throw new IllegalArgumentException("Child or Parent is NIL");
+        }
+
+        int grandparent = this.parent[parent];
+        if (right[parent] == child) {
+            // LEFT ROTATION - the child's left subtree becomes the parent's right subtree
+            int moved = left[child];
+            right[parent] = moved;
+            if (moved != NIL) {
+                this.parent[moved] = parent;
+            }
+            left[child] = parent;
+        } else if (left[parent] == child) {
+            // RIGHT ROTATION - the child's right subtree becomes the parent's left subtree
+            int moved = right[child];
+            left[parent] = moved;
+            if (moved != NIL) {
+                this.parent[moved] = parent;
+            }
+            right[child] = parent;
+        } else {
+            throw new IllegalArgumentException("Nodes are not child or parent and " +
+                    "can't be rotated");
+        }
+
+        // the child takes the parent's place below the grandparent, or as the root
+        if (grandparent == NIL) {
+            root = child;
+        } else if (left[grandparent] == parent) {
+            left[grandparent] = child;
+        } else {
+            right[grandparent] = child;
+        }
+        this.parent[child] = grandparent;
+        this.parent[parent] = child;
+    }
+
+    /**
+     * @return the handle of the node that follows node in order, or NIL if node is last
+     */
+    public int successor(int node) {
+        if (right[node] != NIL) {
+            node = right[node];
+            while (left[node] != NIL) {
+                node = left[node];
+            }
+            return node;
+        }
+        int up = parent[node];
+        while (up != NIL && right[up] == node) {
+            node = up;
+            up = parent[up];
+        }
+        return up;
+    }
+
+    /**
+     * Checks the red black properties of the subtree below node.
+     * @return the number of black nodes on each path from node down to a missing child,
+     * counting that missing child, or -1 if a red node has a red child or two paths
+     * have different numbers of black nodes
+     */
+    protected int checkedBlackHeight(int node) {
+        if (node == NIL) {
+            return 1;
+        }
+        if (red[node] && ((left[node] != NIL && red[left[node]])
+                || (right[node] != NIL && red[right[node]]))) {
+            return -1;
+        }
+        int leftHeight = checkedBlackHeight(left[node]);
+        int rightHeight = checkedBlackHeight(right[node]);
+        if (leftHeight == -1 || leftHeight != rightHeight) {
+            return -1;
+        }
+        return leftHeight + (red[node] ? 0 : 1);
+    }
+
+    /**
+     * @return the number of values in the tree, including duplicates
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree contains 0 values, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values from the tree, and releases the arrays that held them.
+     */
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        root = NIL;
+        size = 0;
+    }
+}
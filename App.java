@@ -1,14 +1,54 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.Scanner;
 
 /**
- * Main entry point for running the Song Tracker app
+ * Main entry point for running the Song Tracker app.  Run with no arguments
+ * for the interactive menus, or with --batch followed by a script of commands,
+ * or - to read the script from standard input, to run the commands without
+ * menus and print their results as JSON lines (see BatchRunner).
  */
 public class App {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+	if (args.length > 0 && (args.length != 2 || !args[0].equals("--batch"))) {
+	    System.err.println("Usage: java App [--batch <script file, or - for standard input>]");
+	    System.exit(2);
+	}
+
 	IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>(); 
-	BackendInterface backend = new Backend(tree);
+	Backend backend = new Backend(tree);
+	// -Disongly.mmap=true maps csv files into memory, decoding their strings only when shown
+	backend.setMemoryMapped(Boolean.getBoolean("isongly.mmap"));
+	// -Disongly.lenient=true skips rows that can't be parsed, and reports them after loading
+	backend.setLenient(Boolean.getBoolean("isongly.lenient"));
+	// publish the backend's timings and counts, readable with jconsole while the app runs
+	backend.getMetrics().register("iSongly:type=Metrics");
+
+	if (args.length == 2) {
+	    BufferedReader script = args[1].equals("-")
+		? new BufferedReader(new InputStreamReader(System.in))
+		: new BufferedReader(new FileReader(args[1]));
+	    Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+	    int failures = new BatchRunner(backend).run(script, out);
+	    script.close();
+	    // a non-zero exit status tells scripts that some commands failed
+	    System.exit(failures == 0 ? 0 : 1);
+	}
+
 	Scanner in = new Scanner(System.in);
-	FrontendInterface frontend = new Frontend(in,backend);
+	// -Disongly.pageSize=N shows long lists of songs N at a time
+	Frontend frontend = new Frontend(in,backend,Integer.getInteger("isongly.pageSize",0));
+	// -Disongly.backgroundLoad=snapshot or =partial loads files without blocking the menu,
+	// querying the songs loaded before the file, or also those loaded so far
+	String backgroundLoad = System.getProperty("isongly.backgroundLoad");
+	if (backgroundLoad != null) {
+	    frontend.setBackgroundLoading(true, backgroundLoad.equals("partial"));
+	}
 
 	System.out.println("Welcome to iSongly");
 	System.out.println("==================");
@@ -0,0 +1,193 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a red black tree that stores its nodes in parallel arrays instead of
+ * RBTNode objects. Each node is an int handle: the index of its entries in the left,
+ * right, parent, red and data arrays. Nodes are allocated in insertion order from the
+ * front of the arrays, so a tree of n values is five arrays rather than n node objects,
+ * and walking the tree reads neighbouring array slots instead of chasing references.
+ */
+public class ArrayRedBlackTree<T extends Comparable<T>>
+        extends AbstractArrayRedBlackTree implements IterableSortedCollection<T> {
+
+    // the ordering used to place values in the tree
+    protected final Comparator<? super T> comparator;
+
+    // node values, indexed by node handle
+    protected Object[] data;
+
+    // bounds used by iterators, null for no bound
+    private Comparable<T> iteratorMin = null;
+    private Comparable<T> iteratorMax = null;
+
+    /**
+     * Creates an empty tree that orders its values by their natural ordering.
+     */
+    public ArrayRedBlackTree() {
+        this(Comparator.naturalOrder());
+    }
+
+    /**
+     * Creates an empty tree that orders its values using the provided comparator.
+     * @param comparator the ordering used to place values in the tree
+     * @throws NullPointerException if comparator is null
+     */
+    public ArrayRedBlackTree(Comparator<? super T> comparator) {
+        if (comparator == null) {
+            throw new NullPointerException("Comparator is null");
+        }
+        this.comparator = comparator;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        data = new Object[capacity];
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        super.resize(capacity);
+        data = Arrays.copyOf(data, capacity);
+    }
+
+    /**
+     * @return the value stored in the node with this handle
+     */
+    @SuppressWarnings("unchecked")
+    protected T dataOf(int node) {
+        return (T) data[node];
+    }
+
+    /**
+     * Inserts a new data value into the tree. Values equal to ones already in the tree
+     * are placed after them.
+     * @param value the new value being inserted
+     * @throws NullPointerException if value is null
+     */
+    @Override
+    public void insert(T value) throws NullPointerException {
+        if (value == null) {
+            throw new NullPointerException("No data to insert");
+        }
+
+        // walk down to the empty child position where value belongs
+        int up = NIL;
+        int current = root;
+        boolean goRight = false;
+        while (current != NIL) {
+            up = current;
+            goRight = comparator.compare(value, dataOf(current)) >= 0;
+            current = goRight ? right[current] : left[current];
+        }
+
+        int newNode = newNode();
+        data[newNode] = value;
+        attach(newNode, up, goRight);
+    }
+
+    /**
+     * Check whether data is stored in the tree.
+     * @param data the value to check for in the collection
+     * @return true if the collection contains data one or more times, and false otherwise
+     */
+    @Override
+    public boolean contains(Comparable<T> data) {
+        if (data == null) {
+            return false;
+        }
+        int current = root;
+        while (current != NIL) {
+            int comparison = data.compareTo(dataOf(current));
+            if (comparison == 0) {
+                return true;
+            }
+            current = comparison > 0 ? right[current] : left[current];
+        }
+        return false;
+    }
+
+    /**
+     * Sets the minimum value for iterators created after this call.
+     * @param min the minimum for iterators created for this tree, or null for no minimum
+     */
+    @Override
+    public void setIteratorMin(Comparable<T> min) {
+        this.iteratorMin = min;
+    }
+
+    /**
+     * Sets the maximum value for iterators created after this call.
+     * @param max the maximum for iterators created for this tree, or null for no maximum
+     */
+    @Override
+    public void setIteratorMax(Comparable<T> max) {
+        this.iteratorMax = max;
+    }
+
+    /**
+     * Returns an iterator over the values in this tree in ascending order, bounded by the
+     * values passed to setIteratorMin and setIteratorMax, with the same semantics as
+     * IterableRedBlackTree.iterator. The iterator walks parent handles to find each
+     * successor, so it needs no stack.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new ArrayRBTIterator(iteratorMin, iteratorMax);
+    }
+
+    /**
+     * Iterator over the nodes of this tree in ascending order.
+     */
+    private class ArrayRBTIterator implements Iterator<T> {
+
+        // stop point (maximum) for the iterator, or null for none
+        private final Comparable<T> max;
+        // handle of the node returned by the next call to next, or NIL when done
+        private int next;
+
+        /**
+         * Creates an iterator starting at the first node that is not smaller than min.
+         */
+        ArrayRBTIterator(Comparable<T> min, Comparable<T> max) {
+            this.max = max;
+            this.next = NIL;
+            int current = root;
+            while (current != NIL) {
+                if (min != null && min.compareTo(dataOf(current)) > 0) {
+                    current = right[current];
+                } else {
+                    next = current;
+                    current = left[current];
+                }
+            }
+        }
+
+        /**
+         * Returns true if the iterator has another value to return, and false otherwise.
+         */
+        @Override
+        public boolean hasNext() {
+            return next != NIL && (max == null || max.compareTo(dataOf(next)) >= 0);
+        }
+
+        /**
+         * Returns the next value of the iterator.
+         * @throws NoSuchElementException if the iterator has no more values to return
+         */
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("There is no element left in the list");
+            }
+            int current = next;
+            next = successor(current);
+            return dataOf(current);
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Tests for ArrayRedBlackTree.
+ */
+public class ArrayRedBlackTreeTests {
+
+    /**
+     * Test containing the same Q03.RBTInsert quiz example as RedBlackTreeTest2, to check
+     * that the array rotations produce the same shape and colors as RedBlackTree
+     */
+    @Test
+    public void arrayRedBlackTreeTest1() {
+        ArrayRedBlackTree<String> tree = new ArrayRedBlackTree<>();
+        tree.insert("L");
+        tree.insert("F");
+        tree.insert("T");
+        tree.insert("B");
+        tree.insert("J");
+        tree.insert("N");
+        tree.insert("S");
+
+        //The order should be
+        //                    L(b)
+        //               F(b)         S(b)
+        //            B(r)  J(r)   N(r)  T(r)
+        int root = tree.root;
+        int leftParent = tree.left[root];
+        int rightParent = tree.right[root];
+
+        Assertions.assertEquals("L", tree.dataOf(root));
+        Assertions.assertFalse(tree.red[root]);
+        Assertions.assertEquals("F", tree.dataOf(leftParent));
+        Assertions.assertFalse(tree.red[leftParent]);
+        Assertions.assertEquals("S", tree.dataOf(rightParent));
+        Assertions.assertFalse(tree.red[rightParent]);
+        Assertions.assertEquals("B", tree.dataOf(tree.left[leftParent]));
+        Assertions.assertEquals("J", tree.dataOf(tree.right[leftParent]));
+        Assertions.assertEquals("N", tree.dataOf(tree.left[rightParent]));
+        Assertions.assertEquals("T", tree.dataOf(tree.right[rightParent]));
+        Assertions.assertTrue(tree.red[tree.right[rightParent]]);
+    }
+
+    /**
+     * Test that many random values with duplicates are iterated in sorted order, that
+     * the red black properties hold, and that the iterator bounds are respected
+     */
+    @Test
+    public void arrayRedBlackTreeTest2() {
+        ArrayRedBlackTree<Integer> tree = new ArrayRedBlackTree<>();
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(400);
+        for (int i = 0; i < 1000; i++) {
+            int value = random.nextInt(300);
+            tree.insert(value);
+            expected.add(value);
+        }
+        Collections.sort(expected);
+
+        Assertions.assertEquals(1000, tree.size());
+        Assertions.assertTrue(tree.checkedBlackHeight(tree.root) > 0, "red black properties broken");
+        Assertions.assertTrue(tree.contains(expected.get(500)));
+        Assertions.assertFalse(tree.contains(300));
+
+        List<Integer> actual = new ArrayList<>();
+        for (Integer value : tree) {
+            actual.add(value);
+        }
+        Assertions.assertEquals(expected, actual);
+
+        // bounded iteration should return exactly the values from 100 to 200
+        tree.setIteratorMin(100);
+        tree.setIteratorMax(200);
+        List<Integer> bounded = new ArrayList<>();
+        for (Integer value : tree) {
+            bounded.add(value);
+        }
+        expected.removeIf(value -> value < 100 || value > 200);
+        Assertions.assertEquals(expected, bounded);
+    }
+
+    /**
+     * Test that a tree ordered by a comparator iterates in that order, and that clear
+     * empties the tree
+     */
+    @Test
+    public void arrayRedBlackTreeTest3() {
+        ArrayRedBlackTree<Integer> tree = new ArrayRedBlackTree<>(Comparator.<Integer>reverseOrder());
+        for (int i = 1; i <= 5; i++) {
+            tree.insert(i);
+        }
+        Iterator<Integer> iterator = tree.iterator();
+        for (int i = 5; i >= 1; i--) {
+            Assertions.assertEquals(i, iterator.next());
+        }
+        Assertions.assertFalse(iterator.hasNext());
+
+        tree.clear();
+        Assertions.assertTrue(tree.isEmpty());
+        Assertions.assertFalse(tree.iterator().hasNext());
+    }
+
+}
@@ -0,0 +1,382 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a B+ tree that stores many values per node. Values are kept in sorted
+ * arrays in the leaves, which are linked left to right, and internal nodes hold only the
+ * separators used to find a leaf. A range scan finds its first leaf once and then reads
+ * leaf arrays in order, so it moves through memory mostly sequentially. The fanout, the
+ * most values or separators a node holds before it splits, is set at construction.
+ */
+public class BPlusTree<T extends Comparable<T>> implements IterableSortedCollection<T> {
+
+    // fanout used when none is given to the constructor
+    public static final int DEFAULT_FANOUT = 64;
+
+    // the ordering used to place values in the tree
+    private final Comparator<? super T> comparator;
+
+    // most keys a node holds before it splits
+    private final int fanout;
+
+    // the top node of the tree, a leaf while the tree fits in one node
+    private Node root;
+
+    // number of values in the tree, including duplicates
+    private int size = 0;
+
+    // bounds used by iterators, null for no bound
+    private Comparable<T> iteratorMin = null;
+    private Comparable<T> iteratorMax = null;
+
+    /**
+     * A node of the tree. In a leaf, keys are the stored values. In an internal node,
+     * keys[i] is the smallest value in children[i + 1] at the time that child was split off.
+     */
+    private static abstract class Node {
+        Object[] keys;
+        int count = 0;
+
+        Node(int fanout) {
+            keys = new Object[fanout + 1];
+        }
+    }
+
+    private static class Leaf extends Node {
+        // the leaf holding the next larger values, or null for the last leaf
+        Leaf next;
+
+        Leaf(int fanout) {
+            super(fanout);
+        }
+    }
+
+    private static class Internal extends Node {
+        Node[] children;
+
+        Internal(int fanout) {
+            super(fanout);
+            children = new Node[fanout + 2];
+        }
+    }
+
+    /**
+     * Creates an empty tree that orders its values by their natural ordering.
+     */
+    public BPlusTree() {
+        this(Comparator.naturalOrder(), DEFAULT_FANOUT);
+    }
+
+    /**
+     * Creates an empty tree that orders its values using the provided comparator.
+     * @param comparator the ordering used to place values in the tree
+     * @param fanout the most keys a node holds before it splits, at least 3
+     * @throws NullPointerException if comparator is null
+     * @throws IllegalArgumentException if fanout is less than 3
+     */
+    public BPlusTree(Comparator<? super T> comparator, int fanout) {
+        if (comparator == null) {
+            throw new NullPointerException("Comparator is null");
+        }
+        if (fanout < 3) {
+            throw new IllegalArgumentException("Fanout must be at least 3, not " + fanout);
+        }
+        this.comparator = comparator;
+        this.fanout = fanout;
+        this.root = new Leaf(fanout);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T key(Node node, int index) {
+        return (T) node.keys[index];
+    }
+
+    /**
+     * Inserts a new data value into the tree. Values equal to ones already in the tree
+     * are placed after them.
+     * @param value the new value being inserted
+     * @throws NullPointerException if value is null
+     */
+    @Override
+    public void insert(T value) throws NullPointerException {
+        if (value == null) {
+            throw new NullPointerException("No data to insert");
+        }
+        Node sibling = insertHelper(root, value);
+        if (sibling != null) {
+            // the root split, so the tree grows a new root above both halves
+            Internal newRoot = new Internal(fanout);
+            newRoot.keys[0] = firstKey(sibling);
+            newRoot.children[0] = root;
+            newRoot.children[1] = sibling;
+            newRoot.count = 1;
+            root = newRoot;
+        }
+        size++;
+    }
+
+    /**
+     * Inserts value into the subtree below node.
+     * @return the new right sibling of node if node split, or null if it did not
+     */
+    private Node insertHelper(Node node, T value) {
+        int index = upperBound(node, value);
+
+        if (node instanceof Leaf) {
+            insertAt(node, index, value);
+            return node.count > fanout ? splitLeaf((Leaf) node) : null;
+        }
+
+        Internal internal = (Internal) node;
+        Node sibling = insertHelper(internal.children[index], value);
+        if (sibling == null) {
+            return null;
+        }
+        // the child split, so add a separator and a link to its new sibling
+        System.arraycopy(internal.children, index + 1, internal.children, index + 2,
+            internal.count - index);
+        internal.children[index + 1] = sibling;
+        insertAt(internal, index, firstKey(sibling));
+        return internal.count > fanout ? splitInternal(internal) : null;
+    }
+
+    /**
+     * Shifts the keys of node from index onward to make room for key at index.
+     */
+    private static void insertAt(Node node, int index, Object key) {
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.count - index);
+        node.keys[index] = key;
+        node.count++;
+    }
+
+    /**
+     * Moves the upper half of an overfull leaf into a new leaf linked after it.
+     */
+    private Leaf splitLeaf(Leaf leaf) {
+        Leaf sibling = new Leaf(fanout);
+        int keep = leaf.count / 2;
+        sibling.count = leaf.count - keep;
+        System.arraycopy(leaf.keys, keep, sibling.keys, 0, sibling.count);
+        Arrays.fill(leaf.keys, keep, leaf.count, null);
+        leaf.count = keep;
+        sibling.next = leaf.next;
+        leaf.next = sibling;
+        return sibling;
+    }
+
+    /**
+     * Moves the upper half of an overfull internal node into a new internal node. The
+     * separator between the halves moves up, and is found again with firstKey.
+     */
+    private Internal splitInternal(Internal internal) {
+        Internal sibling = new Internal(fanout);
+        int keep = internal.count / 2;
+        // keys[keep] moves up to the parent, the keys after it go to the sibling
+        sibling.count = internal.count - keep - 1;
+        System.arraycopy(internal.keys, keep + 1, sibling.keys, 0, sibling.count);
+        System.arraycopy(internal.children, keep + 1, sibling.children, 0, sibling.count + 1);
+        Arrays.fill(internal.keys, keep, internal.count, null);
+        Arrays.fill(internal.children, keep + 1, internal.count + 1, null);
+        internal.count = keep;
+        return sibling;
+    }
+
+    /**
+     * @return the smallest value in the subtree below node
+     */
+    private Object firstKey(Node node) {
+        while (node instanceof Internal) {
+            node = ((Internal) node).children[0];
+        }
+        return node.keys[0];
+    }
+
+    /**
+     * Finds the leaf and position of the first value that is not smaller than min.
+     * @return the leaf, with the position stored in position[0]
+     */
+    private Leaf lowerBound(Comparable<T> min, int[] position) {
+        Node node = root;
+        while (node instanceof Internal) {
+            // go left of every separator that is not smaller than min, so that duplicates
+            // of min left in an earlier leaf by a split are not skipped
+            node = ((Internal) node).children[lowerBound(node, min)];
+        }
+        position[0] = lowerBound(node, min);
+        return (Leaf) node;
+    }
+
+    /**
+     * Binary searches the keys of node.
+     * @return the number of keys in node that are less than or equal to value
+     */
+    private int upperBound(Node node, T value) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (comparator.compare(value, key(node, middle)) >= 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Binary searches the keys of node.
+     * @return the number of keys in node that are smaller than min
+     */
+    private int lowerBound(Node node, Comparable<T> min) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (min.compareTo(key(node, middle)) > 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Check whether data is stored in the tree.
+     * @param data the value to check for in the collection
+     * @return true if the collection contains data one or more times, and false otherwise
+     */
+    @Override
+    public boolean contains(Comparable<T> data) {
+        if (data == null) {
+            return false;
+        }
+        int[] position = new int[1];
+        Leaf leaf = lowerBound(data, position);
+        int index = position[0];
+        // the first value that is not smaller may be at the start of a later leaf
+        while (leaf != null && index == leaf.count) {
+            leaf = leaf.next;
+            index = 0;
+        }
+        return leaf != null && data.compareTo(key(leaf, index)) == 0;
+    }
+
+    /**
+     * @return the number of values in the tree, including duplicates
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if the tree contains 0 values, false otherwise
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values from the tree.
+     */
+    @Override
+    public void clear() {
+        root = new Leaf(fanout);
+        size = 0;
+    }
+
+    /**
+     * Sets the minimum value for iterators created after this call.
+     * @param min the minimum for iterators created for this tree, or null for no minimum
+     */
+    @Override
+    public void setIteratorMin(Comparable<T> min) {
+        this.iteratorMin = min;
+    }
+
+    /**
+     * Sets the maximum value for iterators created after this call.
+     * @param max the maximum for iterators created for this tree, or null for no maximum
+     */
+    @Override
+    public void setIteratorMax(Comparable<T> max) {
+        this.iteratorMax = max;
+    }
+
+    /**
+     * Returns an iterator over the values in this tree in ascending order, bounded by the
+     * values passed to setIteratorMin and setIteratorMax, with the same semantics as
+     * IterableRedBlackTree.iterator.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new LeafIterator(iteratorMin, iteratorMax);
+    }
+
+    /**
+     * Iterator that finds the first leaf of a range, then follows the leaf links.
+     */
+    private class LeafIterator implements Iterator<T> {
+
+        // stop point (maximum) for the iterator, or null for none
+        private final Comparable<T> max;
+        // the leaf and position of the next value, leaf is null when done
+        private Leaf leaf;
+        private int index;
+
+        LeafIterator(Comparable<T> min, Comparable<T> max) {
+            this.max = max;
+            if (min == null) {
+                Node node = root;
+                while (node instanceof Internal) {
+                    node = ((Internal) node).children[0];
+                }
+                leaf = (Leaf) node;
+                index = 0;
+            } else {
+                int[] position = new int[1];
+                leaf = lowerBound(min, position);
+                index = position[0];
+            }
+            skipFinishedLeaves();
+        }
+
+        /**
+         * Moves past the end of the current leaf, and any empty leaves, to the next value.
+         */
+        private void skipFinishedLeaves() {
+            while (leaf != null && index >= leaf.count) {
+                leaf = leaf.next;
+                index = 0;
+            }
+        }
+
+        /**
+         * Returns true if the iterator has another value to return, and false otherwise.
+         */
+        @Override
+        public boolean hasNext() {
+            return leaf != null && (max == null || max.compareTo(key(leaf, index)) >= 0);
+        }
+
+        /**
+         * Returns the next value of the iterator.
+         * @throws NoSuchElementException if the iterator has no more values to return
+         */
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("There is no element left in the list");
+            }
+            T value = key(leaf, index++);
+            skipFinishedLeaves();
+            return value;
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Tests for BPlusTree.
+ */
+public class BPlusTreeTests {
+
+    /**
+     * Test that strings with duplicates are sorted in the right order and that the
+     * iterator stops at the max value, as in IterableRedBlackTree.iteratorTest2
+     */
+    @Test
+    public void bPlusTreeTest1() {
+        BPlusTree<String> tree = new BPlusTree<>(Comparator.<String>naturalOrder(), 3);
+        tree.insert("c");
+        tree.insert("c");
+        tree.insert("z");
+        tree.insert("a");
+        tree.insert("b");
+        tree.insert("a");
+        tree.insert("d");
+        tree.insert("h");
+
+        tree.setIteratorMax("g");
+        Iterator<String> iterator = tree.iterator();
+
+        String[] expected = {"a", "a", "b", "c", "c", "d"};
+        for (String value : expected) {
+            Assertions.assertEquals(value, iterator.next());
+        }
+        Assertions.assertFalse(iterator.hasNext());
+        Assertions.assertEquals(8, tree.size());
+    }
+
+    /**
+     * Test that many random values with many duplicates are iterated in sorted order
+     * through several levels of splits, with and without iterator bounds
+     */
+    @Test
+    public void bPlusTreeTest2() {
+        BPlusTree<Integer> tree = new BPlusTree<>(Comparator.<Integer>naturalOrder(), 4);
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(400);
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(100);
+            tree.insert(value);
+            expected.add(value);
+        }
+        Collections.sort(expected);
+
+        List<Integer> actual = new ArrayList<>();
+        for (Integer value : tree) {
+            actual.add(value);
+        }
+        Assertions.assertEquals(expected, actual);
+
+        // every copy of the bounds should be included, however the leaves split
+        for (int min = 0; min < 100; min += 7) {
+            int max = min + 13;
+            tree.setIteratorMin(min);
+            tree.setIteratorMax(max);
+            List<Integer> bounded = new ArrayList<>();
+            for (Integer value : tree) {
+                bounded.add(value);
+            }
+            List<Integer> expectedBounded = new ArrayList<>();
+            for (Integer value : expected) {
+                if (value >= min && value <= max) {
+                    expectedBounded.add(value);
+                }
+            }
+            Assertions.assertEquals(expectedBounded, bounded);
+            Assertions.assertTrue(tree.contains(min));
+        }
+        Assertions.assertFalse(tree.contains(100));
+    }
+
+    /**
+     * Test that clear empties the tree, and that an empty tree has nothing to iterate
+     */
+    @Test
+    public void bPlusTreeTest3() {
+        BPlusTree<Integer> tree = new BPlusTree<>();
+        Assertions.assertTrue(tree.isEmpty());
+        Assertions.assertFalse(tree.iterator().hasNext());
+        for (int i = 0; i < 500; i++) {
+            tree.insert(i);
+        }
+        Assertions.assertEquals(500, tree.size());
+        tree.clear();
+        Assertions.assertTrue(tree.isEmpty());
+        Assertions.assertFalse(tree.contains(5));
+        Assertions.assertFalse(tree.iterator().hasNext());
+    }
+
+}
@@ -1,4 +1,22 @@
+import java.util.Comparator;
+
 public class BSTRotation<T extends Comparable<T>> extends BinarySearchTree<T> {
+
+    /**
+     * Creates an empty tree that orders its values by their natural ordering.
+     */
+    public BSTRotation() {
+        super();
+    }
+
+    /**
+     * Creates an empty tree that orders its values using the provided comparator.
+     * @param comparator the ordering used to place values in the tree
+     */
+    public BSTRotation(Comparator<? super T> comparator) {
+        super(comparator);
+    }
+
     /**
      * Performs the rotation operation on the provided nodes within this tree.
      * When the provided child is a left child of the provided parent, this
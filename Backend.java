@@ -1,32 +1,231 @@
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
 import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Backend implements BackendInterface {
 
     private IterableSortedCollection<Song> tree;
 
-    private ArrayList<Song> rangeSongs;
+    // the range and filter used by this backend's own getRange, setFilter and fiveMost,
+    // which other users of the same songs keep in sessions of their own, see newSession
+    private final BackendSession session = new BackendSession(this);
 
-    private Integer danceabilityThreshold;
+    // shared copies of the artist and genre values read from csv files
+    private StringDictionary artists = new StringDictionary();
+    private StringDictionary genres = new StringDictionary();
+
+    // when not null, songs read by readData are stored here rather than on the heap
+    private OffHeapSongStore store;
+
+    // whether readData maps files into memory and decodes their strings only when read
+    private boolean memoryMapped = false;
+
+    // the compression formats readData can load, by the extension that follows .csv
+    private final Map<String, CsvCodec> codecs = new HashMap<>();
+
+    // bytes of a compressed file read at a time by its codec
+    private static final int DECODE_BLOCK_SIZE = 1 << 16;
+
+    // the songs in tree keyed by energy, or null until it is next needed after the
+    // tree changes
+    private volatile IntRedBlackTree<Song> energyIndex;
+
+    // held while the energy index is built, so only one query builds it at a time, while
+    // loads keep inserting into the tree
+    private final Object energyIndexLock = new Object();
+
+    // counts of the songs in tree by energy and danceability, or null until it is next
+    // needed after the tree changes
+    private SongCountIndex countIndex;
+
+    // timings and counts of the work done by this backend and its tree
+    private final Metrics metrics = new Metrics();
+    private final Metrics.Histogram readDataNanos = metrics.histogram("readData.nanos");
+    private final Metrics.Counter rowsRead = metrics.counter("readData.rows");
+    private final Metrics.Counter parseErrors = metrics.counter("readData.parseErrors");
+    // recorded by every session's getRange, setFilter and fiveMost
+    final Metrics.Histogram getRangeNanos = metrics.histogram("getRange.nanos");
+    final Metrics.Histogram setFilterNanos = metrics.histogram("setFilter.nanos");
+    final Metrics.Histogram fiveMostNanos = metrics.histogram("fiveMost.nanos");
+
+    // number of songs read before they are inserted into the tree together, when loading
+    // memory mapped files; other loads insert each block parsed by their CsvPipeline
+    private static final int LOAD_BATCH_SIZE = 4096;
+
+    // the number of threads that parse the rows of files read as a stream
+    private int parseThreads = CsvPipeline.defaultParseThreads();
+
+    // whether loads skip rows that can't be parsed, rather than stopping at them
+    private boolean lenient = false;
+
+    // held while songs are inserted into the tree, and while the indexes are built from it,
+    // so a load on another thread never changes the tree while it is being read
+    private final Object treeLock = new Object();
+
+    // the number of times the indexes have been dropped, so an index built from the songs
+    // in the tree before the last change is not kept. Guarded by treeLock
+    private long treeChanges = 0;
+
+    // the progress of the most recent load, or null before the first load
+    private volatile LoadProgress loading;
+
+    // rows read and time taken by the most recent call to readData, for its rows per second
+    private volatile long lastReadRows = 0;
+    private volatile long lastReadNanos = 0;
 
     public Backend(IterableSortedCollection<Song> tree) {
+        this(tree, null);
+    }
+
+    /**
+     * Creates a backend that keeps the data of songs loaded by readData in an off-heap
+     * store. The tree then holds a small OffHeapSong for each song, with the song's id in
+     * that store and its packed numeric attributes, and queries decode just the strings
+     * they read.
+     *
+     * @param tree  the tree used to store, sort, and iterate through songs
+     * @param store the off-heap store for loaded songs, or null to keep songs on the heap
+     */
+    public Backend(IterableSortedCollection<Song> tree, OffHeapSongStore store) {
 
         this.tree = tree;
+        this.store = store;
+        addCodec(CsvCodec.GZIP);
+
+        metrics.gauge("readData.rowsPerSecond", () ->
+            lastReadNanos == 0 ? 0 : lastReadRows * 1_000_000_000L / lastReadNanos);
+        if (tree instanceof RedBlackTree) {
+            RedBlackTree<?> redBlackTree = (RedBlackTree<?>) tree;
+            metrics.gauge("tree.inserts", redBlackTree::getInsertCount);
+            metrics.gauge("tree.rotations", redBlackTree::getRotationCount);
+            metrics.gauge("tree.recolors", redBlackTree::getRecolorCount);
+            // walks the whole tree, but only when the metrics are read
+            metrics.gauge("tree.height", () -> {
+                synchronized (treeLock) {
+                    return redBlackTree.height();
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the metrics recorded by this backend: the latency of each readData,
+     * getRange, setFilter and fiveMost call in nanoseconds, the rows and parse errors
+     * read, and the rows per second of the last load. When the tree is a RedBlackTree,
+     * they also include its insert, rotation and recolor counts and its height.
+     *
+     * @return the registry holding these metrics, which can be dumped or registered
+     * with JMX
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets whether readData and readDataAsync map csv files into memory rather than
+     * reading them line by line. Mapped loads decode only the numeric columns of each
+     * row, and the songs they load decode their title, artist and genre from the mapped
+     * file each time they are read, see MappedSongFile. This makes loading large files
+     * faster and keeps their strings off the heap, at the cost of decoding strings on
+     * every read, and of keeping each loaded file mapped while its songs are in the tree.
+     *
+     * @param memoryMapped whether later loads map their files into memory
+     * @throws IllegalStateException when this backend keeps songs in an off-heap store,
+     *                               which mapped songs are not copied into
+     */
+    public void setMemoryMapped(boolean memoryMapped) {
+        if (memoryMapped && store != null) {
+            throw new IllegalStateException("Songs in an off-heap store cannot be memory mapped");
+        }
+        this.memoryMapped = memoryMapped;
+    }
 
-        Iterator<Song> iterator = tree.iterator();
-        this.rangeSongs = new ArrayList<>();
-        while (iterator.hasNext()) {
-            Song song = iterator.next();
-            rangeSongs.add(song);
+    /**
+     * Sets the number of threads that parse rows while readData and readDataAsync load
+     * a file, besides the thread reading it and the thread inserting its songs into the
+     * tree. Memory mapped files are parsed by the loading thread alone.
+     *
+     * @param parseThreads the number of parse threads, at least 1
+     * @throws IllegalArgumentException if parseThreads is less than 1
+     */
+    public void setParseThreads(int parseThreads) {
+        if (parseThreads < 1) {
+            throw new IllegalArgumentException("Need at least 1 parse thread: " + parseThreads);
         }
+        this.parseThreads = parseThreads;
+    }
+
+    /**
+     * Sets whether readData and readDataAsync skip rows that can't be parsed, such as
+     * rows with missing columns or a year that is not a number, rather than stopping at
+     * the first one with an IOException. Skipped rows are counted in the parseErrors
+     * metric, and the line number and reason of each are recorded in the errors of the
+     * load's progress, see getLastLoad and LoadErrors.
+     *
+     * @param lenient whether later loads skip rows that can't be parsed
+     */
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /**
+     * @return the progress of the most recent load, whether started by readData or
+     * readDataAsync, including the rows it skipped; or null before the first load
+     */
+    @Override
+    public LoadProgress getLastLoad() {
+        return loading;
+    }
+
+    /**
+     * Lets readData and readDataAsync load csv files compressed in this codec's format,
+     * named like songs.csv.gz for a codec with the extension "gz". Files in a format are
+     * decompressed by the reader thread of the load's CsvPipeline, so decompressing
+     * runs while earlier rows are parsed and inserted, without a thread of its own. Gzip
+     * is supported without being added. Adding a codec replaces any codec with the same
+     * extension.
+     *
+     * @param codec the format to support
+     */
+    public void addCodec(CsvCodec codec) {
+        codecs.put(codec.getExtension(), codec);
+    }
+
+    /**
+     * @return the codec that decodes the file with this name, or null if the file is not
+     * compressed
+     */
+    private CsvCodec codecFor(String filename) {
+        int csv = filename.lastIndexOf(".csv.");
+        return csv < 0 ? null : codecs.get(filename.substring(csv + ".csv.".length()));
+    }
+
+    /**
+     * Creates a session with its own range and filter over the songs of this backend.
+     * Sessions share the songs and indexes of the backend, and each holds only its
+     * range and filter, so many users can query one loaded catalog at once without
+     * changing each other's results. Songs loaded through any session, or through this
+     * backend, are seen by all of them.
+     *
+     * @return a session with no range or filter set
+     */
+    public BackendSession newSession() {
+        return new BackendSession(this);
     }
 
 
@@ -44,104 +243,343 @@ public class Backend implements BackendInterface {
 
 
     @Override
-public void readData(String filename) throws IOException {
-    // must have .csv in file
-    if (!filename.endsWith(".csv")) {
-        throw new IOException("Invalid file format");
+    public void readData(String filename) throws IOException {
+        checkNotLoading();
+        File data = checkedFile(filename);
+        LoadProgress progress = new LoadProgress(filename, data.length());
+        this.loading = progress;
+        try {
+            load(data, progress, true);
+        } catch (IOException e) {
+            // a failed load is finished too, so the next load can start
+            progress.finish(e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            progress.finish(new IOException("Could not load " + filename + ": " + e, e));
+            throw e;
+        }
+    }
+
+    /**
+     * Starts loading data from the .csv file referenced by filename on a background
+     * daemon thread, and returns its progress while the file is still being read.
+     * Songs are inserted into the tree in batches, and queries made during the load
+     * read either the songs loaded before it started or also those read so far,
+     * depending on showPartial. Only one load can run at a time.
+     *
+     * @param filename    is the name of the csv file to load data from
+     * @param showPartial whether queries made during the load include the songs read so far
+     * @return the progress of the load
+     * @throws IOException when the file is not a .csv file, or a .csv file compressed by
+     *                     a codec, or it cannot be found
+     * @throws IllegalStateException when another load is still running
+     */
+    @Override
+    public LoadProgress readDataAsync(String filename, boolean showPartial) throws IOException {
+        checkNotLoading();
+        File data = checkedFile(filename);
+        if (!showPartial) {
+            // build the indexes now, so queries read the songs loaded before this load
+            energyIndex();
+            countIndex();
+        }
+        LoadProgress progress = new LoadProgress(filename, data.length());
+        this.loading = progress;
+
+        Thread loader = new Thread(() -> {
+            try {
+                load(data, progress, showPartial);
+            } catch (IOException e) {
+                progress.finish(e);
+            } catch (RuntimeException e) {
+                progress.finish(new IOException("Could not load " + filename + ": " + e, e));
+            } catch (Error e) {
+                progress.finish(new IOException("Could not load " + filename + ": " + e, e));
+                throw e;
+            }
+        }, "readData " + filename);
+        loader.setDaemon(true);
+        loader.start();
+        return progress;
+    }
+
+    /**
+     * @throws IllegalStateException when a load started by readDataAsync is still running
+     */
+    private void checkNotLoading() {
+        LoadProgress current = this.loading;
+        if (current != null && !current.isDone()) {
+            throw new IllegalStateException("Still loading " + current.getFilename());
+        }
     }
 
-    try {
+    /**
+     * @return the file named filename
+     * @throws IOException when the name does not end in .csv, or in .csv followed by the
+     *                     extension of a codec, or the file does not exist
+     */
+    private File checkedFile(String filename) throws IOException {
+        // must have .csv in file
+        if (!filename.endsWith(".csv") && codecFor(filename) == null) {
+            throw new IOException("Invalid file format");
+        }
         File data = new File(filename);
-        Scanner scnr = new Scanner(data);
+        if (!data.isFile()) {
+            throw new IOException("Could not read file: " + filename);
+        }
+        return data;
+    }
 
-        // Check if the file has content
-        if (!scnr.hasNextLine()) {
-            throw new IOException("CSV file is empty or improperly formatted.");
+    /**
+     * Reads songs from a csv file into the tree, updating progress as the file is read,
+     * and marking progress finished when done. Rows are parsed by the parse threads of a
+     * CsvPipeline, while this thread inserts the songs in file order, in batches, while
+     * holding treeLock, so queries on other threads never see the tree mid insert.
+     *
+     * @param data        the csv file to read
+     * @param progress    the progress to update
+     * @param showPartial whether to rebuild the indexes after each batch, so queries see
+     *                    the songs read so far, rather than only once the load ends
+     * @throws IOException when there is trouble reading the file
+     */
+    private void load(File data, LoadProgress progress, boolean showPartial) throws IOException {
+        if (memoryMapped && codecFor(data.getName()) == null) {
+            // compressed files can't be mapped, and are read as a stream instead
+            loadMapped(data, progress, showPartial);
+            return;
         }
+        long start = System.nanoTime();
+        try (InputStream in = new BufferedInputStream(open(data, progress), 1 << 16)) {
 
-        // read header line and split it
-        String lineData = scnr.nextLine();
-        String[] fields = splitCSV(lineData);
-
-        //get the index of each required field
-        int titleIndex = Arrays.asList(fields).indexOf("title");
-        int artistIndex = Arrays.asList(fields).indexOf("artist");
-        int genreIndex = Arrays.asList(fields).indexOf("top genre");
-        int yearIndex = Arrays.asList(fields).indexOf("year");
-        int bpmIndex = Arrays.asList(fields).indexOf("bpm");
-        int energyIndex = Arrays.asList(fields).indexOf("nrgy"); 
-        int danceabilityIndex = Arrays.asList(fields).indexOf("dnce");
-        int loudnessIndex = Arrays.asList(fields).indexOf("dB");
-        int livenessIndex = Arrays.asList(fields).indexOf("live");
-
-        // Make sure all required fields are there
-        if (titleIndex == -1 || artistIndex == -1 || genreIndex == -1 || yearIndex == -1 ||
-            bpmIndex == -1 || energyIndex == -1 || danceabilityIndex == -1 || 
-            loudnessIndex == -1 || livenessIndex == -1) {
-            throw new IOException("Missing one or more required fields in the file.");
+            // read header line, which must be there
+            String header = CsvPipeline.readLine(in);
+            if (header == null) {
+                throw new IOException("CSV file is empty or improperly formatted.");
+            }
+            SongRowParser parser = new SongRowParser(header, artists, genres);
+
+            // rows that can't be parsed are skipped and recorded when lenient
+            ObjLongConsumer<RuntimeException> skip = lenient
+                ? (error, line) -> progress.getErrors().record(line, error)
+                : null;
+
+            // read the remaining lines, parsing them on other threads while the songs
+            // parsed so far are inserted on this one
+            new CsvPipeline<Song>(parseThreads).run(in, 2, line -> {
+                try {
+                    return parser.parse(line);
+                } catch (RuntimeException e) {
+                    // a missing field, or a number that can't be parsed or packed
+                    parseErrors.increment();
+                    throw e;
+                }
+            }, batch -> {
+                if (store != null) {
+                    batch.replaceAll(song -> store.get(store.add(song)));
+                }
+                insertBatch(batch, progress, showPartial);
+            }, skip);
+
+        } catch (FileNotFoundException e) {
+            throw new IOException("Could not read file: " + e.getMessage());
+        } finally {
+            // songs read before any failure are kept, as they were before loads were batched
+            finishLoad(new ArrayList<>(), progress, start);
         }
+        progress.finish(null);
+    }
 
-        // Read remaining lines of the file
-        while (scnr.hasNextLine()) {
-            lineData = scnr.nextLine();
-            String[] songFields = splitCSV(lineData);
+    /**
+     * Opens a csv file for reading, decoding it as it is read if it is compressed, which
+     * happens on the thread reading the stream, usually a CsvPipeline's reader. The
+     * bytes read from the file itself are added to progress, so its percent complete is
+     * of the compressed size of compressed files.
+     */
+    private InputStream open(File data, LoadProgress progress) throws IOException {
+        InputStream in = new CountingInputStream(new FileInputStream(data), progress);
+        CsvCodec codec = codecFor(data.getName());
+        if (codec == null) {
+            return in;
+        }
+        try {
+            return codec.decode(new BufferedInputStream(in, DECODE_BLOCK_SIZE));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
 
+    /**
+     * Reads songs from a csv file into the tree like load, but through a MappedSongFile,
+     * so only the numeric columns of each row are decoded while loading.
+     */
+    private void loadMapped(File data, LoadProgress progress, boolean showPartial) throws IOException {
+        long start = System.nanoTime();
+        List<Song> batch = new ArrayList<>(LOAD_BATCH_SIZE);
+        try {
+            MappedSongFile file = new MappedSongFile(data);
+            long reported = 0;
+            while (true) {
+                Song song;
+                try {
+                    song = file.next();
+                } catch (RuntimeException e) {
+                    // a missing field, or a number that can't be parsed or packed
+                    parseErrors.increment();
+                    if (!lenient) {
+                        throw new IOException("Line " + file.getLineNumber() + ": "
+                            + LoadErrors.reason(e), e);
+                    }
+                    progress.getErrors().record(file.getLineNumber(), e);
+                    continue;
+                }
+                if (song == null) {
+                    break;
+                }
+                batch.add(song);
+                if (batch.size() == LOAD_BATCH_SIZE) {
+                    progress.addBytes(file.position() - reported);
+                    reported = file.position();
+                    insertBatch(batch, progress, showPartial);
+                }
+            }
+            progress.addBytes(file.position() - reported);
+        } finally {
+            finishLoad(batch, progress, start);
+        }
+        progress.finish(null);
+    }
 
-            // Get values from each index
-            String title = songFields[titleIndex];
-            String artist = songFields[artistIndex];
-            String genre = songFields[genreIndex];
-            int year = Integer.parseInt(songFields[yearIndex]);
-            int bpm = Integer.parseInt(songFields[bpmIndex]);
-            int energy = Integer.parseInt(songFields[energyIndex]);
-            int danceability = Integer.parseInt(songFields[danceabilityIndex]);
-            int loudness = Integer.parseInt(songFields[loudnessIndex]);
-            int liveness = Integer.parseInt(songFields[livenessIndex]);
+    /**
+     * Inserts the last batch of a load that started at start, and records its metrics.
+     */
+    private void finishLoad(List<Song> batch, LoadProgress progress, long start) {
+        insertBatch(batch, progress, true);
+        long elapsed = System.nanoTime() - start;
+        readDataNanos.record(elapsed);
+        rowsRead.add(progress.getRows());
+        lastReadRows = progress.getRows();
+        lastReadNanos = elapsed;
+    }
 
-     
-            Song song = new Song(title, artist, genre, year, bpm, energy, danceability, loudness, liveness);
-            tree.insert(song);
+    /**
+     * Inserts a batch of songs into the tree and empties the batch.
+     * @param invalidate whether to drop the indexes, so they are rebuilt with these songs
+     */
+    private void insertBatch(List<Song> batch, LoadProgress progress, boolean invalidate) {
+        synchronized (treeLock) {
+            for (Song song : batch) {
+                tree.insert(song);
+            }
+            if (invalidate) {
+                // the tree has changed, so the indexes are rebuilt on their next use
+                this.energyIndex = null;
+                this.countIndex = null;
+                this.treeChanges++;
+            }
+        }
+        progress.addRows(batch.size());
+        batch.clear();
+    }
+
+    /**
+     * An input stream that adds the bytes read through it to a load's progress.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+
+        private final LoadProgress progress;
+
+        CountingInputStream(InputStream in, LoadProgress progress) {
+            super(in);
+            this.progress = progress;
         }
 
-        
-        scnr.close();
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                progress.addBytes(1);
+            }
+            return read;
+        }
 
-    } catch (FileNotFoundException e) {
-        throw new IOException("Could not read file: " + e.getMessage());
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                progress.addBytes(read);
+            }
+            return read;
+        }
     }
-}
 
 
     /**
-    * A custom method to split CSV lines, accounting for commas inside quoted fields.
-    */
-private String[] splitCSV(String line) {
-    boolean insideQuote = false;
-    StringBuilder field = new StringBuilder();
-    ArrayList<String> fields = new ArrayList<>();
+     * Returns the index of the songs in the tree by energy, building it from the tree if
+     * the tree has changed since it was last built. Songs are inserted in
+     * SongComparators.BY_ENERGY order, so walking the index visits songs with equal
+     * energy in title order, and range results need no further sorting.
+     * <p>
+     * The index is a snapshot that is never changed once built, rather than one kept up
+     * to date as songs are inserted, so queries can walk it, and lazy streams can hold
+     * on to it, without holding treeLock. The cost is an O(n log n) rebuild on the first
+     * query after the tree changes, which during a load that shows partial results is
+     * the first query after each batch. Only the copy of the tree's song references is
+     * made while holding treeLock; sorting and building happen after it is released, so
+     * a load keeps inserting while a query builds. The index holds references to the
+     * songs in the tree, not copies of them, with an int key and links for each, and
+     * the copy it is built from is dropped once it is built.
+     */
+    private IntRedBlackTree<Song> energyIndex() {
+        IntRedBlackTree<Song> index = this.energyIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (energyIndexLock) {
+            ArrayList<Song> songs;
+            long changes;
+            synchronized (treeLock) {
+                if (this.energyIndex != null) {
+                    // built by another query while this one waited
+                    return this.energyIndex;
+                }
+                songs = new ArrayList<>(tree.size());
+                for (Song song : tree) {
+                    songs.add(song);
+                }
+                changes = this.treeChanges;
+            }
 
-    for (int i = 0; i < line.length(); i++) {
-        char currentChar = line.charAt(i);
+            songs.sort(SongComparators.BY_ENERGY);
+            index = new IntRedBlackTree<>();
+            for (Song song : songs) {
+                index.insert(song.getEnergy(), song);
+            }
 
-        if (currentChar == '"') {
-            // Toggle whether we're inside a quoted string
-            insideQuote = !insideQuote;
-        } else if (currentChar == ',' && !insideQuote) {
-            // If it is  a comma and we're not inside quotes, it marks the end of a field
-            fields.add(field.toString().trim());
-            field.setLength(0); // Reset the field builder
-        } else {
-            // append the character to the current field
-            field.append(currentChar);
+            synchronized (treeLock) {
+                // kept only if no songs were inserted since the copy, otherwise the next
+                // query builds it again, while this one answers from the copy it made
+                if (this.treeChanges == changes) {
+                    this.energyIndex = index;
+                }
+            }
+            return index;
         }
     }
 
-    
-    fields.add(field.toString().trim());
+    /**
+     * Returns the counts of the songs in the tree by energy and danceability, building
+     * them from the tree if the tree has changed since they were last built.
+     */
+    private SongCountIndex countIndex() {
+        synchronized (treeLock) {
+            if (this.countIndex == null) {
+                this.countIndex = new SongCountIndex(tree);
+            }
+            return this.countIndex;
+        }
+    }
 
-    // convert the list to an array 
-    return fields.toArray(new String[0]);
-}
 
      
 
@@ -167,47 +605,40 @@ private String[] splitCSV(String line) {
      */
     @Override
     public List<String> getRange(Integer low, Integer high) {
-        ArrayList<Song> filteredSongs = new ArrayList<>();
-        Iterator<Song> iterator = tree.iterator();
-        
-        if(low == null){
-            low = Integer.MIN_VALUE;
-        }
-        if(high == null){
-            high = Integer.MAX_VALUE;
-        }
-        
-        List<String> result = new ArrayList<>(); 
-        // Return an empty list for invalid range
-        if (low > high) {
-            return new ArrayList<>();
-        }
+        return session.getRange(low, high);
+    }
 
-        while (iterator.hasNext()) {
-            Song song = iterator.next();
-            int energy = song.getEnergy();
-		
-            // check if song's energy is in the range
-	    if ((energy >= low) && (energy <= high)) {
-                // apply danceability filter if set
-                if (this.danceabilityThreshold == null || song.getDanceability() > this.danceabilityThreshold) {
-			filteredSongs.add(song);
-                }
-            }
+    /**
+     * Retrieves the titles of the songs with an Energy from low to high and a
+     * Danceability larger than threshold, ordered by Energy and then title. This reads
+     * no state set by getRange or setFilter, and changes none, so it can be called from
+     * many threads at once.
+     *
+     * @param low       is the minimum Energy of songs in the returned list, or null for no minimum
+     * @param high      is the maximum Energy of songs in the returned list, or null for no maximum
+     * @param threshold songs must have a larger Danceability than this, or null for no filter
+     * @return the titles, or an empty list when no songs match
+     */
+    public List<String> titles(Integer low, Integer high, Integer threshold) {
+        int min = low == null ? Integer.MIN_VALUE : low;
+        int max = high == null ? Integer.MAX_VALUE : high;
+        List<String> result = new ArrayList<>();
+        if (min > max) {
+            return result;
         }
 
-     
-        this.rangeSongs = filteredSongs;
-
-        // Sort filteredSongs by Energy
-        filteredSongs.sort(Comparator.comparing(Song::getEnergy));
-
-        // create result list of song titles
-        for (Song song : filteredSongs) {
-            result.add(song.getTitle());
+        // walk only the songs with energy in the range, using the energy index, which
+        // already orders them by Energy, then title
+        IntRedBlackTree<Song> index = energyIndex();
+        for (int node = index.ceiling(min);
+             node != IntRedBlackTree.NONE && index.keyOf(node) <= max;
+             node = index.successor(node)) {
+            Song song = index.valueOf(node);
+            // apply danceability filter if set
+            if (threshold == null || song.getDanceability() > threshold) {
+                result.add(song.getTitle());
+            }
         }
-
-
         return result;
     }
 
@@ -231,35 +662,7 @@ private String[] splitCSV(String line) {
      */
     @Override
     public List<String> setFilter(Integer threshold) {
-        this.danceabilityThreshold = threshold;
-
-       
-	if (this.rangeSongs == null || this.rangeSongs.isEmpty()) {
-            return new ArrayList<>();
-        }
-
-	 //list to store the filtered results
-        List<Song> filteredSongs = new ArrayList<>();
-
-        for (Song song : this.rangeSongs) {
-            // Include songs with Danceability greater than the threshold or all songs if the
-            // threshold is null
-            if (threshold == null || song.getDanceability() > threshold) {
-                filteredSongs.add(song);
-            }
-        }
-
-    
-        Collections.sort(filteredSongs, Comparator.comparing(Song::getEnergy));
-
-        // convert the sorted Song objects to a list of titles
-        List<String> result = new ArrayList<>();
-
-        for (Song song : filteredSongs) {
-            result.add(song.getTitle());
-        }
-
-        return result;
+        return session.setFilter(threshold);
     }
 
     /**
@@ -276,43 +679,275 @@ private String[] splitCSV(String line) {
      */
     @Override
     public List<String> fiveMost() {
-        List<String> result = new ArrayList<>();
+        return session.fiveMost();
+    }
 
-       
-        if (this.rangeSongs == null || this.rangeSongs.isEmpty()) {
-            return result;
+    /**
+     * Returns the titles of the k most recent songs with an Energy from low to high and a
+     * Danceability larger than threshold, latest first, with songs from the same year in
+     * title order. This reads no state set by getRange or setFilter, and changes none,
+     * so it can be called from many threads at once.
+     *
+     * @param low       is the minimum Energy of songs to include, or null for no minimum
+     * @param high      is the maximum Energy of songs to include, or null for no maximum
+     * @param threshold songs must have a larger Danceability than this, or null for no filter
+     * @param k         is the largest number of titles to return, at least 1
+     * @return up to k titles, or an empty list when no songs match
+     * @throws IllegalArgumentException if k is less than 1
+     */
+    public List<String> mostRecent(Integer low, Integer high, Integer threshold, int k) {
+        if (k < 1) {
+            throw new IllegalArgumentException("Number of songs must be at least 1: " + k);
         }
-
-        // list to hold filtered songs that meet the danceability threshold
-        List<Song> filteredSongs = new ArrayList<>();
-
-        for (Song song : this.rangeSongs) {
+        int min = low == null ? Integer.MIN_VALUE : low;
+        int max = high == null ? Integer.MAX_VALUE : high;
+        IntRedBlackTree<Song> index = energyIndex();
+
+        // the most recent songs seen so far, kept in SongComparators.BY_YEAR_DESCENDING order
+        Song[] recent = new Song[Math.min(k, 64)];
+        int count = 0;
+        for (int node = index.ceiling(min);
+             node != IntRedBlackTree.NONE && index.keyOf(node) <= max;
+             node = index.successor(node)) {
+            Song song = index.valueOf(node);
             // Check if the song meets the danceability filter
-            if (this.danceabilityThreshold == null || song.getDanceability() >= this.danceabilityThreshold) {
-                filteredSongs.add(song);
+            if (threshold != null && song.getDanceability() <= threshold) {
+                continue;
+            }
+            // find where the song belongs, after any songs that compare equal to it
+            int position = count;
+            while (position > 0 && SongComparators.BY_YEAR_DESCENDING.compare(song, recent[position - 1]) < 0) {
+                position--;
+            }
+            if (position == k) {
+                continue;
             }
+            if (count == recent.length && count < k) {
+                recent = Arrays.copyOf(recent, (int) Math.min(k, 2L * count));
+            }
+            int end = Math.min(count, recent.length - 1);
+            System.arraycopy(recent, position, recent, position + 1, end - position);
+            recent[position] = song;
+            count = Math.min(count + 1, k);
         }
 
-        // If there are fewer than five songs, return all of them
-        if (filteredSongs.size() < 5) {
-            for (Song song : filteredSongs) {
-                result.add(song.getTitle());
-            }
-            return result;
+        List<String> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(recent[i].getTitle());
         }
+        return result;
+    }
+
+    /**
+     * Counts the songs with an Energy in the specified range that pass the Danceability
+     * filter set by the most recent call to setFilter, without building the list of
+     * their titles. Like getRange, a null low or high leaves that end of the range
+     * unbounded. This does not change the range used by setFilter and fiveMost.
+     *
+     * @param low  is the minimum Energy of songs to count
+     * @param high is the maximum Energy of songs to count
+     * @return the number of songs that getRange(low, high) would return
+     */
+    public int countInRange(Integer low, Integer high) {
+        return session.countInRange(low, high);
+    }
+
+    /**
+     * Counts the songs with an Energy in the specified range and a Danceability larger
+     * than threshold. Counts are answered in constant time from prefix sums over Energy
+     * and Danceability, and allocate nothing once those sums are built.
+     *
+     * @param low       is the minimum Energy of songs to count, or null for no minimum
+     * @param high      is the maximum Energy of songs to count, or null for no maximum
+     * @param threshold songs must have a larger Danceability than this, or null for no filter
+     * @return the number of such songs
+     */
+    public int countInRange(Integer low, Integer high, Integer threshold) {
+        return countIndex().count(low, high, threshold);
+    }
 
-        //sort the filtered songs by year in descending order to get
-        // the most recent songs
+    /**
+     * Retrieves one page of the titles getRange(low, high) would return, using the
+     * Danceability filter set by the most recent call to setFilter. Songs are read from
+     * the energy index only until the page is full, so the time taken depends on the
+     * page size rather than on the number of songs in the range. Unlike getRange, this
+     * does not change the range used by setFilter and fiveMost.
+     *
+     * @param low   is the minimum Energy of songs in the page, or null for no minimum
+     * @param high  is the maximum Energy of songs in the page, or null for no maximum
+     * @param after is the cursor returned with the previous page, or null for the first page
+     * @param limit is the largest number of titles to return, at least 1
+     * @return the page of titles, with a cursor for the next page if more songs match
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    public SongPage getRangePage(Integer low, Integer high, SongPage.Cursor after, int limit) {
+        return session.getRangePage(low, high, after, limit);
+    }
 
-        Collections.sort(filteredSongs, Comparator.comparing(Song::getYear).reversed());
+    /**
+     * Retrieves the page of titles that getRange(low, high) would return starting at
+     * position offset, using the Danceability filter set by the most recent call to
+     * setFilter. Reaching a page walks past the offset songs before it, so prefer
+     * continuing with the cursor of the previous page when reading pages in order.
+     *
+     * @param low    is the minimum Energy of songs in the page, or null for no minimum
+     * @param high   is the maximum Energy of songs in the page, or null for no maximum
+     * @param offset is the number of matching songs to skip before the page
+     * @param limit  is the largest number of titles to return, at least 1
+     * @return the page of titles, with a cursor for the next page if more songs match
+     * @throws IllegalArgumentException if offset is negative or limit is less than 1
+     */
+    public SongPage getRangePage(Integer low, Integer high, int offset, int limit) {
+        return session.getRangePage(low, high, offset, limit);
+    }
 
-        // Add the top 5 or fewer song titles to the result list
-        for (int i = 0; i < 5; i++) {
-            result.add(filteredSongs.get(i).getTitle());
+    /**
+     * Retrieves one page of the titles of the songs with an Energy from low to high and
+     * a Danceability larger than threshold, like getRangePage, but without reading the
+     * filter set by setFilter, so it can be called from many threads at once.
+     *
+     * @param low       is the minimum Energy of songs in the page, or null for no minimum
+     * @param high      is the maximum Energy of songs in the page, or null for no maximum
+     * @param threshold songs must have a larger Danceability than this, or null for no filter
+     * @param after     is the cursor returned with the previous page, or null for the first page
+     * @param limit     is the largest number of titles to return, at least 1
+     * @return the page of titles, with a cursor for the next page if more songs match
+     * @throws IllegalArgumentException if limit is less than 1
+     */
+    public SongPage getRangePage(Integer low, Integer high, Integer threshold,
+                                 SongPage.Cursor after, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be at least 1: " + limit);
+        }
+        int min = low == null ? Integer.MIN_VALUE : low;
+        int max = high == null ? Integer.MAX_VALUE : high;
+        List<String> titles = new ArrayList<>(Math.min(limit, 64));
+        if (min > max) {
+            return new SongPage(titles, null);
         }
 
-        return result;
+        IntRedBlackTree<Song> index = energyIndex();
+
+        // the energy and title of the last song returned, and how many times in a row
+        // that energy and title has been returned
+        int lastEnergy = 0;
+        String lastTitle = null;
+        int repeats = 0;
+
+        int node;
+        if (after == null || after.getEnergy() < min) {
+            node = index.ceiling(min);
+        } else {
+            // seek past the songs that sort before the cursor, which the index holds in
+            // BY_ENERGY order, then skip the repeats already returned
+            lastEnergy = after.getEnergy();
+            lastTitle = after.getTitle();
+            repeats = after.getRepeats();
+            int skipped = 0;
+            String cursorTitle = lastTitle;
+            node = index.ceiling(lastEnergy, song -> cursorTitle.compareTo(song.getTitle()));
+            while (node != IntRedBlackTree.NONE && index.keyOf(node) == lastEnergy) {
+                Song song = index.valueOf(node);
+                int comparison = song.getTitle().compareTo(lastTitle);
+                if (comparison > 0 || (comparison == 0 && skipped == repeats)) {
+                    break;
+                }
+                if (comparison == 0 && (threshold == null || song.getDanceability() > threshold)) {
+                    skipped++;
+                }
+                node = index.successor(node);
+            }
+        }
+
+        while (node != IntRedBlackTree.NONE && index.keyOf(node) <= max) {
+            Song song = index.valueOf(node);
+            if (threshold == null || song.getDanceability() > threshold) {
+                if (titles.size() == limit) {
+                    // a further match exists, so the page ends with a cursor
+                    return new SongPage(titles, new SongPage.Cursor(lastEnergy, lastTitle, repeats));
+                }
+                String title = song.getTitle();
+                if (title.equals(lastTitle) && song.getEnergy() == lastEnergy) {
+                    repeats++;
+                } else {
+                    lastEnergy = song.getEnergy();
+                    lastTitle = title;
+                    repeats = 1;
+                }
+                titles.add(title);
+            }
+            node = index.successor(node);
+        }
+        return new SongPage(titles, null);
     }
-}
 
+    /**
+     * Returns the songs getRange(low, high) would return the titles of, as a lazy stream.
+     * Songs are read from the energy index and checked against the Danceability filter
+     * set by the most recent call to setFilter one at a time, as the stream is consumed,
+     * so a consumer that stops early never visits the rest of the range, and nothing is
+     * buffered. Unlike getRange, this does not change the range used by setFilter and
+     * fiveMost. The stream keeps reading the songs loaded when it was created, even if
+     * readData loads more before it is consumed.
+     *
+     * @param low  is the minimum Energy of songs in the stream, or null for no minimum
+     * @param high is the maximum Energy of songs in the stream, or null for no maximum
+     * @return the songs ordered by Energy, then title
+     */
+    public Stream<Song> streamRange(Integer low, Integer high) {
+        return session.streamRange(low, high);
+    }
+
+    /**
+     * Returns the songs setFilter(threshold) would return the titles of, as a lazy
+     * stream: the songs in the Energy range of the most recent call to getRange with a
+     * Danceability larger than threshold, checked one at a time as the stream is
+     * consumed. Unlike setFilter, this does not change the filter used by getRange and
+     * fiveMost.
+     *
+     * @param threshold songs must have a larger Danceability than this, or null for no filter
+     * @return the songs ordered by Energy, then title
+     */
+    public Stream<Song> streamFiltered(Integer threshold) {
+        return session.streamFiltered(threshold);
+    }
 
+    /**
+     * Returns the songs with an Energy from low to high and a Danceability larger than
+     * threshold, as a lazy stream over the energy index, like streamRange. This reads no
+     * state set by getRange or setFilter, and changes none, so it can be called from
+     * many threads at once.
+     *
+     * @param low       is the minimum Energy of songs in the stream, or null for no minimum
+     * @param high      is the maximum Energy of songs in the stream, or null for no maximum
+     * @param threshold songs must have a larger Danceability than this, or null for no filter
+     * @return the songs ordered by Energy, then title
+     */
+    public Stream<Song> stream(Integer low, Integer high, Integer threshold) {
+        int min = low == null ? Integer.MIN_VALUE : low;
+        int max = high == null ? Integer.MAX_VALUE : high;
+        IntRedBlackTree<Song> index = energyIndex();
+        int first = min > max ? IntRedBlackTree.NONE : index.ceiling(min);
+
+        Spliterator<Song> songs = new Spliterators.AbstractSpliterator<Song>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            // handle of the next song in the index to check
+            private int node = first;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Song> action) {
+                while (node != IntRedBlackTree.NONE && index.keyOf(node) <= max) {
+                    Song song = index.valueOf(node);
+                    node = index.successor(node);
+                    if (threshold == null || song.getDanceability() > threshold) {
+                        action.accept(song);
+                        return true;
+                    }
+                }
+                node = IntRedBlackTree.NONE;
+                return false;
+            }
+        };
+        return StreamSupport.stream(songs, false);
+    }
+}
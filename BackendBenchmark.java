@@ -0,0 +1,109 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the hot paths of the app on catalogs generated from the distribution of the
+ * songs in songs.csv, see SongDistribution and SongCsvGenerator: inserting into and
+ * iterating over the IterableRedBlackTree the app uses, loading a csv file with
+ * Backend.readData, read line by line or memory mapped, and the getRange, setFilter and
+ * fiveMost queries on a loaded Backend. Each result includes the bytes allocated and
+ * garbage collections run by the operation, see Benchmark.
+ *
+ * Run with: java BackendBenchmark [sizes], for example
+ * java -Xmx8g -Dbenchmark.csv=results.csv BackendBenchmark 10000,100000,1000000
+ */
+public class BackendBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        SongDistribution distribution = SongDistribution.of("songs.csv");
+        SongCsvGenerator generator = new SongCsvGenerator(distribution);
+        Benchmark benchmark = new Benchmark();
+        for (int size : Benchmark.sizes(args, "10000,100000,1000000")) {
+            List<Song> songs = distribution.songs(size, new Random(400));
+            benchmark.header(size + " songs");
+            measureTree(benchmark, songs);
+            measureBackend(benchmark, generator, size);
+        }
+        System.out.println("checksum " + benchmark.checksum());
+    }
+
+    /**
+     * Measures inserting songs into an empty IterableRedBlackTree, and iterating over
+     * the full tree and over a range of it.
+     */
+    private static void measureTree(Benchmark benchmark, List<Song> songs) {
+        int size = songs.size();
+        benchmark.measure("RedBlackTree.insert", size, IterableRedBlackTree<Song>::new,
+            tree -> {
+                for (Song song : songs) {
+                    tree.insert(song);
+                }
+                return tree.size();
+            });
+
+        IterableRedBlackTree<Song> tree = new IterableRedBlackTree<>();
+        for (Song song : songs) {
+            tree.insert(song);
+        }
+        benchmark.measure("RBTIterator full scan", size, () -> {
+            long energy = 0;
+            for (Song song : tree) {
+                energy += song.getEnergy();
+            }
+            return energy;
+        });
+        benchmark.measure("RBTIterator title range", size, () -> {
+            tree.setIteratorMin(new Song("H", "", "", 0L));
+            tree.setIteratorMax(new Song("M", "", "", 0L));
+            long energy = 0;
+            for (Song song : tree) {
+                energy += song.getEnergy();
+            }
+            tree.setIteratorMin(null);
+            tree.setIteratorMax(null);
+            return energy;
+        });
+    }
+
+    /**
+     * Measures loading a csv file of generated songs, and the queries on the loaded songs.
+     */
+    private static void measureBackend(Benchmark benchmark, SongCsvGenerator generator,
+                                       int size) throws IOException {
+        File csv = File.createTempFile("songs", ".csv");
+        csv.deleteOnExit();
+        generator.write(csv.getPath(), size, 400);
+        benchmark.measure("Backend.readData", size, IterableRedBlackTree<Song>::new, tree -> {
+            try {
+                new Backend(tree).readData(csv.getPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return tree.size();
+        });
+        benchmark.measure("Backend.readData mapped", size, IterableRedBlackTree<Song>::new, tree -> {
+            try {
+                Backend backend = new Backend(tree);
+                backend.setMemoryMapped(true);
+                backend.readData(csv.getPath());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return tree.size();
+        });
+
+        Backend backend = new Backend(new IterableRedBlackTree<>());
+        backend.readData(csv.getPath());
+        csv.delete();
+        benchmark.measure("Backend.getRange(40, 60)", size,
+            () -> backend.getRange(40, 60).size());
+        benchmark.measure("Backend.setFilter(50)", size,
+            () -> backend.setFilter(50).size());
+        benchmark.measure("Backend.fiveMost", size,
+            () -> backend.fiveMost().size());
+        backend.setFilter(null);
+    }
+}
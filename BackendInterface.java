@@ -24,6 +24,40 @@ public interface BackendInterface {
      */
     public void readData(String filename) throws IOException;
 
+    /**
+     * Starts loading data from the .csv file referenced by filename, as
+     * readData does, and returns while the file is still being read, so that
+     * callers are not blocked by large files.  The returned progress reports
+     * how much of the file has been read, and whether the load has finished
+     * or failed.  Backends that cannot load in the background use this
+     * default, which loads the whole file before returning.
+     * @param filename is the name of the csv file to load data from
+     * @param showPartial when true, queries made during the load include the
+     *     songs read so far, and when false, they only include the songs
+     *     loaded before this load started, until it finishes
+     * @return the progress of the load
+     * @throws IOException when the file cannot be found or opened; problems
+     *     found while reading are reported by the returned progress instead
+     */
+    public default LoadProgress readDataAsync(String filename, boolean showPartial)
+            throws IOException {
+        LoadProgress progress = new LoadProgress(filename, new java.io.File(filename).length());
+        readData(filename);
+        progress.finish(null);
+        return progress;
+    }
+
+    /**
+     * Returns the progress of the most recent load, including any rows it skipped
+     * because they could not be parsed. Backends that don't track their loads return
+     * null.
+     *
+     * @return the progress of the most recent load, or null
+     */
+    public default LoadProgress getLastLoad() {
+        return null;
+    }
+
     /**
      * Retrieves a list of song titles from the tree passed to the contructor.
      * The songs should be ordered by the songs' Energy, and that fall within
@@ -0,0 +1,164 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * This class holds the range and filter of one user of a Backend, as set by getRange and
+ * setFilter, so that many users can query the same loaded songs without changing each
+ * other's results. The songs and their indexes belong to the Backend, and are shared by
+ * all of its sessions; a session only holds three numbers. Create sessions with
+ * Backend.newSession. A session is meant to be used by one thread at a time, while
+ * different sessions of one Backend can be used from different threads at once.
+ */
+public class BackendSession implements BackendInterface {
+
+    private final Backend catalog;
+
+    // Energy bounds of the most recent call to getRange, null when unbounded. setFilter
+    // and fiveMost read the songs in this range from the catalog when they are called
+    private Integer rangeLow;
+    private Integer rangeHigh;
+
+    private Integer danceabilityThreshold;
+
+    /**
+     * Creates a session with no range or filter set over the songs of catalog.
+     * @param catalog the backend whose songs this session queries
+     */
+    BackendSession(Backend catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * @return the backend whose songs this session queries
+     */
+    public Backend getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Loads the songs of a csv file into the catalog, where every session of it sees them.
+     */
+    @Override
+    public void readData(String filename) throws IOException {
+        catalog.readData(filename);
+    }
+
+    @Override
+    public LoadProgress readDataAsync(String filename, boolean showPartial) throws IOException {
+        return catalog.readDataAsync(filename, showPartial);
+    }
+
+    /**
+     * Retrieves the titles of the songs with an Energy from low to high that pass this
+     * session's Danceability filter, ordered by Energy, then title, and remembers the
+     * range for this session's setFilter and fiveMost. An empty range, where low is
+     * larger than high, returns an empty list and leaves the range unchanged.
+     *
+     * @param low  is the minimum Energy of songs in the returned list, or null for no minimum
+     * @param high is the maximum Energy of songs in the returned list, or null for no maximum
+     * @return the titles, or an empty list when no songs match
+     */
+    @Override
+    public List<String> getRange(Integer low, Integer high) {
+        long start = System.nanoTime();
+        if (low != null && high != null && low > high) {
+            catalog.getRangeNanos.recordSince(start);
+            return new ArrayList<>();
+        }
+        List<String> result = catalog.titles(low, high, this.danceabilityThreshold);
+        this.rangeLow = low == null || low == Integer.MIN_VALUE ? null : low;
+        this.rangeHigh = high == null || high == Integer.MAX_VALUE ? null : high;
+        catalog.getRangeNanos.recordSince(start);
+        return result;
+    }
+
+    /**
+     * Sets this session's Danceability filter, and retrieves the titles of the songs in
+     * its range that pass it, ordered by Energy, then title.
+     *
+     * @param threshold songs must have a larger Danceability than this, or null to clear the filter
+     * @return the titles, or an empty list when no songs match
+     */
+    @Override
+    public List<String> setFilter(Integer threshold) {
+        long start = System.nanoTime();
+        this.danceabilityThreshold = threshold;
+
+        // walk the songs in the range of the last getRange call, already ordered by Energy
+        List<String> result = catalog.stream(this.rangeLow, this.rangeHigh, threshold)
+            .map(Song::getTitle)
+            .collect(Collectors.toCollection(ArrayList::new));
+        catalog.setFilterNanos.recordSince(start);
+        return result;
+    }
+
+    /**
+     * Retrieves the titles of the five most recent songs in this session's range that
+     * pass its filter, latest first.
+     *
+     * @return up to five titles, or an empty list when no songs match
+     */
+    @Override
+    public List<String> fiveMost() {
+        long start = System.nanoTime();
+        List<String> result = catalog.mostRecent(this.rangeLow, this.rangeHigh,
+            this.danceabilityThreshold, 5);
+        catalog.fiveMostNanos.recordSince(start);
+        return result;
+    }
+
+    /**
+     * Counts the songs getRange(low, high) would return, using this session's filter,
+     * without changing its range.
+     */
+    public int countInRange(Integer low, Integer high) {
+        return catalog.countInRange(low, high, this.danceabilityThreshold);
+    }
+
+    /**
+     * Retrieves one page of the titles getRange(low, high) would return, using this
+     * session's filter, without changing its range. See Backend.getRangePage.
+     */
+    public SongPage getRangePage(Integer low, Integer high, SongPage.Cursor after, int limit) {
+        return catalog.getRangePage(low, high, this.danceabilityThreshold, after, limit);
+    }
+
+    /**
+     * Retrieves the page of titles getRange(low, high) would return starting at position
+     * offset, using this session's filter, without changing its range.
+     *
+     * @throws IllegalArgumentException if offset is negative or limit is less than 1
+     */
+    public SongPage getRangePage(Integer low, Integer high, int offset, int limit) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Page offset cannot be negative: " + offset);
+        }
+        if (offset == 0) {
+            return getRangePage(low, high, null, limit);
+        }
+        SongPage skipped = getRangePage(low, high, null, offset);
+        if (!skipped.hasNext()) {
+            return new SongPage(new ArrayList<>(), null);
+        }
+        return getRangePage(low, high, skipped.getNext(), limit);
+    }
+
+    /**
+     * Returns the songs getRange(low, high) would return the titles of, using this
+     * session's filter, as a lazy stream, without changing its range.
+     */
+    public Stream<Song> streamRange(Integer low, Integer high) {
+        return catalog.stream(low, high, this.danceabilityThreshold);
+    }
+
+    /**
+     * Returns the songs setFilter(threshold) would return the titles of, using this
+     * session's range, as a lazy stream, without changing its filter.
+     */
+    public Stream<Song> streamFiltered(Integer threshold) {
+        return catalog.stream(this.rangeLow, this.rangeHigh, threshold);
+    }
+}
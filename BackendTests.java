@@ -1,10 +1,20 @@
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.io.FileNotFoundException;
 import java.util.Scanner;
+import java.util.Iterator;
+import java.util.stream.Collectors;
 
 public class BackendTests {
 
@@ -123,6 +133,793 @@ public class BackendTests {
         Assertions.assertTrue(noSongs.isEmpty(), "fiveMost should return empty list");
     }
 
+    /**
+     * Tests that readData keeps each song's genre, and that songs sharing an artist or
+     * genre share the same String instance for it
+     */
+    @Test
+    public void backendTest4() throws IOException {
+
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        BackendInterface end = new Backend(tree);
+        end.readData("songs.csv");
+
+        Song firstGaga = null;
+        Song secondGaga = null;
+        for (Song song : tree) {
+            Assertions.assertTrue(song.getGenres() != null, song.getTitle() + " has no genre");
+            if (song.getArtist().equals("Lady Gaga")) {
+                if (firstGaga == null) {
+                    firstGaga = song;
+                } else if (secondGaga == null) {
+                    secondGaga = song;
+                }
+            }
+        }
+
+        // both Lady Gaga songs should be found, and share their artist and genre strings
+        Assertions.assertTrue(firstGaga != null && secondGaga != null, "Lady Gaga songs missing");
+        Assertions.assertTrue(firstGaga.getArtist() == secondGaga.getArtist(), "artist not shared");
+        Assertions.assertEquals("dance pop", firstGaga.getGenres());
+        Assertions.assertTrue(firstGaga.getGenres() == secondGaga.getGenres(), "genre not shared");
+    }
+
+    /**
+     * Tests that a song's packed attributes read back unchanged at the edges of each
+     * field's range, and that values that do not fit are rejected
+     */
+    @Test
+    public void backendTest5() {
+
+        Song low = new Song("low", "artist", "genre", -32768, 0, 0, 0, -128, 0);
+        Song high = new Song("high", "artist", "genre", 32767, 65535, 255, 255, 127, 255);
+
+        Assertions.assertEquals(-32768, low.getYear());
+        Assertions.assertEquals(0, low.getBPM());
+        Assertions.assertEquals(-128, low.getLoudness());
+        Assertions.assertEquals(32767, high.getYear());
+        Assertions.assertEquals(65535, high.getBPM());
+        Assertions.assertEquals(255, high.getEnergy());
+        Assertions.assertEquals(255, high.getDanceability());
+        Assertions.assertEquals(127, high.getLoudness());
+        Assertions.assertEquals(255, high.getLiveness());
+
+        // each attribute should come back on its own, without bleeding into its neighbours
+        Song song = new Song("Hello", "Adele", "british soul", 2016, 79, 43, 48, -6, 9);
+        Assertions.assertEquals(2016, song.getYear());
+        Assertions.assertEquals(79, song.getBPM());
+        Assertions.assertEquals(43, song.getEnergy());
+        Assertions.assertEquals(48, song.getDanceability());
+        Assertions.assertEquals(-6, song.getLoudness());
+        Assertions.assertEquals(9, song.getLiveness());
+
+        IllegalArgumentException loud = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Song("loud", "artist", "genre", 2016, 79, 43, 48, 200, 9));
+        Assertions.assertEquals("loudness 200 is outside of -128 to 127", loud.getMessage());
+        IllegalArgumentException late = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Song("late", "artist", "genre", 40000, 79, 43, 48, -6, 9));
+        Assertions.assertEquals("year 40000 is outside of -32768 to 32767", late.getMessage());
+        IllegalArgumentException slow = Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new Song("slow", "artist", "genre", 2016, -1, 43, 48, -6, 9));
+        Assertions.assertEquals("bpm -1 is outside of 0 to 65535", slow.getMessage());
+    }
+
+    /**
+     * Tests that a backend storing its songs off-heap loads the whole file and answers
+     * queries with the same results as one storing songs on the heap
+     */
+    @Test
+    public void backendTest6() throws IOException {
+
+        OffHeapSongStore store = new OffHeapSongStore();
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        BackendInterface end = new Backend(tree, store);
+        end.readData("songs.csv");
+
+        IterableSortedCollection<Song> heapTree = new IterableRedBlackTree<Song>();
+        BackendInterface heapEnd = new Backend(heapTree);
+        heapEnd.readData("songs.csv");
+
+        Assertions.assertEquals(heapTree.size(), store.size());
+        Assertions.assertEquals(heapEnd.getRange(90, 100), end.getRange(90, 100));
+        Assertions.assertEquals(heapEnd.setFilter(70), end.setFilter(70));
+        Assertions.assertEquals(heapEnd.fiveMost(), end.fiveMost());
+
+        // songs read back from the store should keep every field
+        Song song = store.get(0);
+        Assertions.assertEquals("Hey, Soul Sister", song.getTitle());
+        Assertions.assertEquals("Train", song.getArtist());
+        Assertions.assertEquals("neo mellow", song.getGenres());
+        Assertions.assertEquals(2010, song.getYear());
+        Assertions.assertEquals(-4, song.getLoudness());
+
+        // titles compared in the store should order the same as the titles themselves,
+        // including characters of more than one byte, and outside of the BMP
+        String[] titles = { "Hello", "Hell", "hello", "\uFF28ello", "H\u00e9llo", "H\uD83D\uDE00llo",
+                            "H\uFFFDllo", "", "Hello!" };
+        OffHeapSongStore titleStore = new OffHeapSongStore();
+        for (String title : titles) {
+            titleStore.add(title, "artist", "genre", 0L);
+        }
+        for (int i = 0; i < titles.length; i++) {
+            for (int j = 0; j < titles.length; j++) {
+                Assertions.assertEquals(Integer.signum(titles[i].compareTo(titles[j])),
+                    Integer.signum(titleStore.get(i).compareTo(titleStore.get(j))),
+                    titles[i] + " against " + titles[j]);
+            }
+        }
+    }
+
+    /**
+     * Tests that countInRange agrees with the number of titles getRange returns, with and
+     * without a Danceability filter, and for unbounded and empty ranges
+     */
+    @Test
+    public void backendTest7() throws IOException {
+
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        Backend end = new Backend(tree);
+        end.readData("songs.csv");
+
+        Assertions.assertEquals(tree.size(), end.countInRange(null, null));
+        Assertions.assertEquals(0, end.countInRange(60, 50));
+        Assertions.assertEquals(end.getRange(40, 60).size(), end.countInRange(40, 60));
+
+        end.setFilter(70);
+        Assertions.assertEquals(end.getRange(0, 100).size(), end.countInRange(0, 100));
+        Assertions.assertEquals(end.getRange(95, 100).size(), end.countInRange(95, 100));
+        Assertions.assertEquals(end.getRange(null, 30).size(), end.countInRange(null, 30));
+        Assertions.assertEquals(0, end.countInRange(null, null, 255));
+    }
+
+    /**
+     * Tests that reading getRangePage pages in order, with cursors or offsets, returns
+     * the same titles in the same order as getRange
+     */
+    @Test
+    public void backendTest8() throws IOException {
+
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        Backend end = new Backend(tree);
+        end.readData("songs.csv");
+        end.setFilter(60);
+        List<String> expected = end.getRange(50, 90);
+
+        // pages joined together should match the full list, including pages that end
+        // between two songs with the same title and Energy
+        for (int limit : new int[] {1, 2, 7}) {
+            List<String> paged = new java.util.ArrayList<>();
+            SongPage page = end.getRangePage(50, 90, null, limit);
+            paged.addAll(page.getTitles());
+            while (page.hasNext()) {
+                Assertions.assertEquals(limit, page.getTitles().size());
+                page = end.getRangePage(50, 90, page.getNext(), limit);
+                paged.addAll(page.getTitles());
+            }
+            Assertions.assertEquals(expected, paged);
+        }
+
+        // a page found by offset should match the same slice of the full list
+        SongPage third = end.getRangePage(50, 90, 14, 7);
+        Assertions.assertEquals(expected.subList(14, 21), third.getTitles());
+        Assertions.assertFalse(end.getRangePage(50, 90, expected.size(), 7).hasNext());
+        Assertions.assertTrue(end.getRangePage(50, 90, expected.size(), 7).getTitles().isEmpty());
+    }
+
+    /**
+     * Tests that the streaming queries return the same songs, in the same order, as
+     * getRange and setFilter, and that a stream can be stopped early
+     */
+    @Test
+    public void backendTest9() throws IOException {
+
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        Backend end = new Backend(tree);
+        end.readData("songs.csv");
+        end.setFilter(65);
+
+        List<String> expected = end.getRange(60, 80);
+        List<String> streamed = end.streamRange(60, 80).map(Song::getTitle)
+            .collect(Collectors.toList());
+        Assertions.assertEquals(expected, streamed);
+
+        List<String> firstThree = end.streamRange(60, 80).limit(3).map(Song::getTitle)
+            .collect(Collectors.toList());
+        Assertions.assertEquals(expected.subList(0, 3), firstThree);
+
+        // streamFiltered uses the range from getRange, and leaves the filter unchanged
+        List<String> filtered = end.streamFiltered(75).map(Song::getTitle)
+            .collect(Collectors.toList());
+        Assertions.assertEquals(expected, end.streamRange(60, 80)
+            .map(Song::getTitle).collect(Collectors.toList()));
+        Assertions.assertEquals(end.setFilter(75), filtered);
+    }
+
+    /**
+     * Tests that setFilter and fiveMost read songs loaded after the backend was created,
+     * and that loosening the filter brings back songs an earlier filter excluded
+     */
+    @Test
+    public void backendTest10() throws IOException {
+
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        Backend end = new Backend(tree);
+        end.readData("songs.csv");
+
+        // with no range set, setFilter covers every loaded song
+        Assertions.assertEquals(end.countInRange(null, null, 90), end.setFilter(90).size());
+
+        end.getRange(60, 80);
+        List<String> loosened = end.setFilter(null);
+        Assertions.assertEquals(end.countInRange(60, 80, null), loosened.size());
+        Assertions.assertEquals(end.getRange(60, 80), loosened);
+
+        // fiveMost returns the five latest songs in the range, latest first
+        List<Song> inRange = new ArrayList<>();
+        for (Song song : tree) {
+            if (song.getEnergy() >= 60 && song.getEnergy() <= 80) {
+                inRange.add(song);
+            }
+        }
+        inRange.sort(SongComparators.BY_YEAR_DESCENDING);
+        List<String> expected = new ArrayList<>();
+        for (Song song : inRange.subList(0, 5)) {
+            expected.add(song.getTitle());
+        }
+        Assertions.assertEquals(expected, end.fiveMost());
+    }
+
+    /**
+     * Tests that the metrics count rows, queries and tree work, and that histogram
+     * percentiles stay within a bucket of the recorded values
+     */
+    @Test
+    public void backendTest11() throws IOException {
+
+        IterableRedBlackTree<Song> tree = new IterableRedBlackTree<Song>();
+        Backend end = new Backend(tree);
+        end.readData("songs.csv");
+        end.getRange(40, 60);
+        end.getRange(60, 40);
+        end.setFilter(50);
+        end.fiveMost();
+
+        Map<String, Long> values = end.getMetrics().getValues();
+        Assertions.assertEquals(601L, values.get("readData.rows"));
+        Assertions.assertEquals(0L, values.get("readData.parseErrors"));
+        Assertions.assertEquals(1L, values.get("readData.nanos.count"));
+        Assertions.assertEquals(2L, values.get("getRange.nanos.count"));
+        Assertions.assertEquals(1L, values.get("setFilter.nanos.count"));
+        Assertions.assertEquals(1L, values.get("fiveMost.nanos.count"));
+        Assertions.assertTrue(values.get("readData.rowsPerSecond") > 0);
+        Assertions.assertEquals(values.get("readData.rows"), values.get("tree.inserts"));
+        Assertions.assertTrue(values.get("tree.rotations") > 0);
+        Assertions.assertTrue(values.get("tree.recolors") > 0);
+        // a red black tree of 601 songs is at most 2 * log2(602) high
+        Assertions.assertTrue(values.get("tree.height") <= 18);
+        Assertions.assertTrue(end.getMetrics().dump().contains("getRange.nanos.p99 "));
+
+        Metrics.Histogram histogram = new Metrics().histogram("values");
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+        Assertions.assertEquals(1000L, histogram.count());
+        Assertions.assertEquals(1_000_000L, histogram.max());
+        long median = histogram.percentile(50);
+        Assertions.assertTrue(median >= 500_000 && median <= 500_000 * 17 / 16, "median " + median);
+    }
+
+    /**
+     * Tests that a background load reports its progress, and that queries made while it
+     * runs in snapshot mode only see the songs loaded before it started
+     */
+    @Test
+    public void backendTest12() throws IOException, InterruptedException {
+
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        Backend end = new Backend(tree);
+        end.readData("songs.csv");
+
+        LoadProgress progress = end.readDataAsync("songs.csv", false);
+        Assertions.assertEquals(601, end.countInRange(null, null, null));
+        progress.await();
+
+        Assertions.assertTrue(progress.isDone());
+        Assertions.assertNull(progress.getFailure());
+        Assertions.assertEquals(601L, progress.getRows());
+        Assertions.assertEquals(new File("songs.csv").length(), progress.getBytesRead());
+        Assertions.assertEquals(100, progress.getPercentComplete());
+        Assertions.assertEquals(1202, end.countInRange(null, null, null));
+
+        // files that can't be opened are reported before the load starts
+        Assertions.assertThrows(IOException.class, () -> end.readDataAsync("missing.csv", true));
+    }
+
+    /**
+     * Tests that the HTTP server answers each query from its own parameters, matching the
+     * backend, and rejects invalid parameters
+     */
+    @Test
+    public void backendTest13() throws IOException {
+
+        Backend end = new Backend(new IterableRedBlackTree<Song>());
+        end.readData("songs.csv");
+        SongServer server = new SongServer(end, 0);
+        server.start();
+        try {
+            String base = "http://localhost:" + server.getPort();
+
+            List<String> expected = end.stream(98, 100, null).map(Song::getTitle)
+                .collect(Collectors.toList());
+            String json = Json.appendStrings(new StringBuilder(), expected).toString();
+            Assertions.assertEquals("{\"count\":" + expected.size() + ",\"titles\":" + json + "}",
+                get(base + "/range?low=98&high=100"));
+
+            Assertions.assertEquals("{\"count\":" + end.countInRange(40, 60, 50) + "}",
+                get(base + "/count?low=40&high=60&threshold=50"));
+
+            // the requests above leave no range or filter behind for this one
+            Assertions.assertEquals("{\"count\":601}", get(base + "/count"));
+
+            String top = get(base + "/top?k=2&low=95");
+            json = Json.appendStrings(new StringBuilder(), end.mostRecent(95, null, null, 2)).toString();
+            Assertions.assertEquals("{\"count\":2,\"titles\":" + json + "}", top);
+
+            Assertions.assertTrue(get(base + "/range?limit=3").startsWith("{\"count\":3,"));
+            Assertions.assertTrue(get(base + "/range?low=abc").startsWith("400 {\"error\""));
+            Assertions.assertTrue(get(base + "/top?k=0").startsWith("400 {\"error\""));
+
+            // only the exact path of each query is served
+            Assertions.assertTrue(get(base + "/rangefoo").startsWith("404 {\"error\""));
+            Assertions.assertTrue(get(base + "/top/x").startsWith("404 {\"error\""));
+            Assertions.assertTrue(get(base + "/filter?threshold=50").startsWith("404 {\"error\""));
+            Assertions.assertTrue(get(base + "/").startsWith("404 {\"error\""));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Tests that sessions of one backend keep their own range and filter, while sharing
+     * its songs, including when they are used from several threads at once
+     */
+    @Test
+    public void backendTest14() throws IOException, InterruptedException {
+
+        Backend end = new Backend(new IterableRedBlackTree<Song>());
+        end.readData("songs.csv");
+        BackendSession first = end.newSession();
+        BackendSession second = end.newSession();
+
+        List<String> high = end.titles(90, null, null);
+        List<String> highDanceable = end.titles(90, null, 60);
+        List<String> low = end.titles(null, 20, null);
+
+        Assertions.assertEquals(high, first.getRange(90, null));
+        Assertions.assertEquals(low, second.getRange(null, 20));
+        Assertions.assertEquals(highDanceable, first.setFilter(60));
+        // the filter set by the first session doesn't apply to the second, or to the backend
+        Assertions.assertEquals(low, second.getRange(null, 20));
+        Assertions.assertEquals(end.mostRecent(null, 20, null, 5), second.fiveMost());
+        Assertions.assertEquals(end.mostRecent(90, null, 60, 5), first.fiveMost());
+        Assertions.assertEquals(601, end.getRange(null, null).size());
+        Assertions.assertEquals(highDanceable.size(), first.countInRange(90, null));
+
+        // songs loaded through one session are seen by all of them
+        second.readData("songs.csv");
+        Assertions.assertEquals(2 * highDanceable.size(), first.setFilter(60).size());
+
+        List<Throwable> failures = java.util.Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            int threshold = i * 10;
+            threads[i] = new Thread(() -> {
+                try {
+                    BackendSession session = end.newSession();
+                    for (int round = 0; round < 50; round++) {
+                        session.setFilter(threshold);
+                        Assertions.assertEquals(end.titles(50, 70, threshold), session.getRange(50, 70));
+                        Assertions.assertEquals(end.mostRecent(50, 70, threshold, 5), session.fiveMost());
+                        session.setFilter(null);
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(List.of(), failures);
+    }
+
+    /**
+     * Tests that memory mapped loads find the same songs as loads read line by line,
+     * including titles with quotes and characters outside of ASCII
+     */
+    @Test
+    public void backendTest15() throws IOException {
+
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        Backend end = new Backend(tree);
+        end.setMemoryMapped(true);
+        end.readData("songs.csv");
+
+        IterableSortedCollection<Song> heapTree = new IterableRedBlackTree<Song>();
+        Backend heapEnd = new Backend(heapTree);
+        heapEnd.readData("songs.csv");
+
+        Assertions.assertEquals(heapTree.size(), tree.size());
+        Assertions.assertEquals(heapEnd.getRange(null, null), end.getRange(null, null));
+        Assertions.assertEquals(heapEnd.setFilter(70), end.setFilter(70));
+        Assertions.assertEquals(heapEnd.fiveMost(), end.fiveMost());
+        Iterator<Song> heapSongs = heapTree.iterator();
+        for (Song song : tree) {
+            Song heapSong = heapSongs.next();
+            Assertions.assertTrue(song instanceof MappedSong);
+            Assertions.assertEquals(heapSong.getTitle(), song.getTitle());
+            Assertions.assertEquals(heapSong.getArtist(), song.getArtist());
+            Assertions.assertEquals(heapSong.getGenres(), song.getGenres());
+            Assertions.assertEquals(heapSong.getPackedAttributes(), song.getPackedAttributes());
+        }
+
+        // columns in another order, windows line endings, and titles that can't be
+        // compared byte by byte
+        File csv = File.createTempFile("mapped", ".csv");
+        csv.deleteOnExit();
+        java.nio.file.Files.writeString(csv.toPath(),
+            "extra,nrgy,dnce,title,artist,top genre,year,bpm,dB,live\r\n"
+            + "x,50,60,\"Hello, \"\"World\"\"\",Adele,pop, 2015 ,100,-6,10\r\n"
+            + "y,50,61,Édith,Piaf,chanson,1960,90,-8,20\r\n"
+            + "z,50,62,Zed,Band,rock,2001,120,-3,5\r\n", StandardCharsets.UTF_8);
+        Backend mapped = new Backend(new IterableRedBlackTree<Song>());
+        mapped.setMemoryMapped(true);
+        mapped.readData(csv.getPath());
+        Backend heap = new Backend(new IterableRedBlackTree<Song>());
+        heap.readData(csv.getPath());
+        Assertions.assertEquals(List.of("Hello, World", "Zed", "Édith"), mapped.getRange(50, 50));
+        Assertions.assertEquals(heap.getRange(50, 50), mapped.getRange(50, 50));
+        Assertions.assertEquals(heap.fiveMost(), mapped.fiveMost());
+
+        java.nio.file.Files.writeString(csv.toPath(),
+            "title,artist,top genre,year,bpm,nrgy,dnce,dB,live\n"
+            + "Fine,A,pop,2010,100,50,50,-5,10\n"
+            + "Broken,A,pop,20x0,100,50,50,-5,10\n", StandardCharsets.UTF_8);
+        IOException bad = Assertions.assertThrows(IOException.class, () -> mapped.readData(csv.getPath()));
+        Assertions.assertEquals("Line 3: year is not a whole number: 20x0", bad.getMessage());
+
+        // rows already read decode from another thread while the row index keeps growing
+        StringBuilder rows = new StringBuilder("title,artist,top genre,year,bpm,nrgy,dnce,dB,live\n");
+        for (int row = 0; row < 50000; row++) {
+            rows.append("song ").append(row).append(",A,pop,2010,100,50,50,-5,10\n");
+        }
+        java.nio.file.Files.writeString(csv.toPath(), rows, StandardCharsets.UTF_8);
+        MappedSongFile file = new MappedSongFile(csv);
+        String[] wrong = new String[1];
+        Thread decoder = new Thread(() -> {
+            int decoded = 0;
+            while (decoded < 50000 && wrong[0] == null) {
+                for (int count = file.getRowCount(); decoded < count; decoded++) {
+                    if (!file.getTitle(decoded).equals("song " + decoded)) {
+                        wrong[0] = file.getTitle(decoded);
+                    }
+                }
+            }
+        });
+        decoder.start();
+        while (file.next() != null) {
+            // read every row, growing the index as the decoder reads it
+        }
+        try {
+            decoder.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Assertions.assertFalse(decoder.isAlive(), "decoder did not finish");
+        Assertions.assertNull(wrong[0]);
+        csv.delete();
+    }
+
+    /**
+     * Tests loading csv files compressed with gzip, or with a codec added to the backend,
+     * and that truncated files fail rather than loading part of the file
+     */
+    @Test
+    public void backendTest16() throws IOException, InterruptedException {
+
+        File gzip = File.createTempFile("songs", ".csv.gz");
+        gzip.deleteOnExit();
+        byte[] plain = java.nio.file.Files.readAllBytes(new File("songs.csv").toPath());
+        try (java.io.OutputStream out = new java.util.zip.GZIPOutputStream(
+                new java.io.FileOutputStream(gzip))) {
+            out.write(plain);
+        }
+
+        Backend heapEnd = new Backend(new IterableRedBlackTree<Song>());
+        heapEnd.readData("songs.csv");
+        Backend end = new Backend(new IterableRedBlackTree<Song>());
+        end.readData(gzip.getPath());
+        Assertions.assertEquals(heapEnd.getRange(null, null), end.getRange(null, null));
+        Assertions.assertEquals(heapEnd.fiveMost(), end.fiveMost());
+
+        // mapped backends read compressed files as a stream
+        Backend mapped = new Backend(new IterableRedBlackTree<Song>());
+        mapped.setMemoryMapped(true);
+        LoadProgress progress = mapped.readDataAsync(gzip.getPath(), true);
+        progress.await();
+        Assertions.assertEquals(gzip.length(), progress.getBytesRead());
+        Assertions.assertEquals(601, mapped.countInRange(null, null, null));
+
+        // a codec that stores bytes reversed, under its own extension
+        File reversed = File.createTempFile("songs", ".csv.rev");
+        reversed.deleteOnExit();
+        byte[] backwards = plain.clone();
+        for (int i = 0; i < backwards.length; i++) {
+            backwards[i] = plain[plain.length - 1 - i];
+        }
+        java.nio.file.Files.write(reversed.toPath(), backwards);
+        Backend custom = new Backend(new IterableRedBlackTree<Song>());
+        Assertions.assertThrows(IOException.class, () -> custom.readData(reversed.getPath()));
+        custom.addCodec(new CsvCodec() {
+            public String getExtension() { return "rev"; }
+            public InputStream decode(InputStream compressed) throws IOException {
+                byte[] bytes = compressed.readAllBytes();
+                compressed.close();
+                for (int i = 0; i < bytes.length / 2; i++) {
+                    byte swap = bytes[i];
+                    bytes[i] = bytes[bytes.length - 1 - i];
+                    bytes[bytes.length - 1 - i] = swap;
+                }
+                return new java.io.ByteArrayInputStream(bytes);
+            }
+        });
+        custom.readData(reversed.getPath());
+        Assertions.assertEquals(heapEnd.getRange(null, null), custom.getRange(null, null));
+
+        // cut the compressed file short
+        byte[] compressed = java.nio.file.Files.readAllBytes(gzip.toPath());
+        java.nio.file.Files.write(gzip.toPath(), Arrays.copyOf(compressed, compressed.length / 2));
+        Backend truncated = new Backend(new IterableRedBlackTree<Song>());
+        Assertions.assertThrows(IOException.class, () -> truncated.readData(gzip.getPath()));
+
+        // a codec whose stream throws a RuntimeException partway through ends the load
+        // with a failure, rather than leaving it running forever
+        File failing = File.createTempFile("songs", ".csv.fail");
+        failing.deleteOnExit();
+        new SongCsvGenerator("songs.csv").write(failing.getPath(), 20000, 7);
+        Backend broken = new Backend(new IterableRedBlackTree<Song>());
+        broken.addCodec(new CsvCodec() {
+            public String getExtension() { return "fail"; }
+            public InputStream decode(InputStream compressed) {
+                return new java.io.FilterInputStream(compressed) {
+                    private int reads = 0;
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        // the first reads hold the header, read before the pipeline starts
+                        if (++reads > 3) {
+                            throw new IllegalStateException("corrupt block");
+                        }
+                        return super.read(buffer, offset, length);
+                    }
+                };
+            }
+        });
+        LoadProgress failed = broken.readDataAsync(failing.getPath(), true);
+        for (int waited = 0; !failed.isDone() && waited < 10_000; waited += 10) {
+            Thread.sleep(10);
+        }
+        Assertions.assertTrue(failed.isDone(), "load did not finish");
+        Assertions.assertNotNull(failed.getFailure());
+        Assertions.assertTrue(failed.getFailure().getMessage().contains("corrupt block"),
+            failed.getFailure().getMessage());
+        IOException thrown = Assertions.assertThrows(IOException.class,
+            () -> broken.readData(failing.getPath()));
+        Assertions.assertTrue(thrown.getMessage().contains("corrupt block"), thrown.getMessage());
+        broken.readData("songs.csv");
+
+        gzip.delete();
+        reversed.delete();
+        failing.delete();
+    }
+
+    /**
+     * Tests that loads parsed by several threads insert the same songs in the same order
+     * as a single parse thread, and keep the songs before a row that fails to parse
+     */
+    @Test
+    public void backendTest17() throws IOException {
+
+        File csv = File.createTempFile("pipeline", ".csv");
+        csv.deleteOnExit();
+        new SongCsvGenerator("songs.csv").write(csv.getPath(), 20000, 7);
+        // a line longer than a block read by the pipeline
+        String longTitle = "x".repeat(600_000);
+        java.nio.file.Files.writeString(csv.toPath(),
+            longTitle + ",Artist,pop,2000,100,50,50,-5,10,1,2,3,4,5\n",
+            StandardCharsets.UTF_8, java.nio.file.StandardOpenOption.APPEND);
+
+        List<Song> inserted = new ArrayList<>();
+        List<Song> insertedInParallel = new ArrayList<>();
+        Backend single = new Backend(new Tree_Placeholder() {
+            public void insert(Song song) { inserted.add(song); }
+        });
+        single.setParseThreads(1);
+        single.readData(csv.getPath());
+        Backend parallel = new Backend(new Tree_Placeholder() {
+            public void insert(Song song) { insertedInParallel.add(song); }
+        });
+        parallel.setParseThreads(4);
+        long workerBytes = CsvPipeline.workerAllocatedBytes();
+        parallel.readData(csv.getPath());
+        // the reader and parse threads copy and decode every byte, and count it by the
+        // time readData returns, so benchmarks can add it to the inserter's allocations
+        Assertions.assertTrue(CsvPipeline.workerAllocatedBytes() - workerBytes > csv.length());
+
+        Assertions.assertEquals(20001, insertedInParallel.size());
+        for (int i = 0; i < inserted.size(); i++) {
+            Assertions.assertEquals(inserted.get(i).getTitle(), insertedInParallel.get(i).getTitle());
+        }
+        Assertions.assertEquals(longTitle, insertedInParallel.get(20000).getTitle());
+
+        // a bad year on line 15002, which is row 15000
+        List<String> lines = java.nio.file.Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        lines.set(15001, lines.get(15001).replaceFirst(",(\\d{4}),", ",twenty,"));
+        java.nio.file.Files.write(csv.toPath(), lines, StandardCharsets.UTF_8);
+        IterableSortedCollection<Song> tree = new IterableRedBlackTree<Song>();
+        Backend failing = new Backend(tree);
+        failing.setParseThreads(4);
+        IOException bad = Assertions.assertThrows(IOException.class, () -> failing.readData(csv.getPath()));
+        Assertions.assertEquals("Line 15002: year is not a whole number: twenty", bad.getMessage());
+        Assertions.assertEquals(15000, tree.size());
+        Assertions.assertEquals(1L, failing.getMetrics().getValues().get("readData.parseErrors"));
+        csv.delete();
+    }
+
+    /**
+     * Tests that lenient loads skip the rows that can't be parsed, and report their line
+     * numbers, whether the file is read as a stream or memory mapped
+     */
+    @Test
+    public void backendTest18() throws IOException {
+
+        File csv = File.createTempFile("lenient", ".csv");
+        csv.deleteOnExit();
+        java.nio.file.Files.writeString(csv.toPath(),
+            "title,artist,top genre,year,bpm,nrgy,dnce,dB,live\n"
+            + "One,A,pop,2010,100,50,50,-5,10\n"
+            + "Two,A,pop,20x0,100,50,50,-5,10\n"
+            + "Three,A,pop,2012\n"
+            + "Four,A,pop,2013,100,50,50,-5,10\n"
+            + "Five,A,pop,2014,100,300,50,-5,10\n"
+            + "Six,A,pop,2015,100,50,50,-5,10\n", StandardCharsets.UTF_8);
+
+        for (boolean memoryMapped : new boolean[] { false, true }) {
+            Backend end = new Backend(new IterableRedBlackTree<Song>());
+            end.setMemoryMapped(memoryMapped);
+            end.setLenient(true);
+            end.readData(csv.getPath());
+
+            Assertions.assertEquals(List.of("Four", "One", "Six"), end.getRange(null, null));
+            LoadErrors errors = end.getLastLoad().getErrors();
+            Assertions.assertEquals(3, errors.getCount());
+            Assertions.assertEquals(3L, end.getMetrics().getValues().get("readData.parseErrors"));
+            Assertions.assertEquals(List.of(
+                "line 3: year is not a whole number: 20x0",
+                "line 4: Expected at least 9 columns, but found 4",
+                "line 6: energy 300 is outside of 0 to 255"), errors.getSamples());
+            Assertions.assertEquals(1L, errors.getCounts().get("NumberFormatException"));
+            Assertions.assertEquals(2L, errors.getCounts().get("IllegalArgumentException"));
+            Assertions.assertTrue(errors.toString().startsWith("3 bad rows skipped"));
+
+            // without lenient, the first bad row stops the load
+            Backend strict = new Backend(new IterableRedBlackTree<Song>());
+            strict.setMemoryMapped(memoryMapped);
+            IOException bad = Assertions.assertThrows(IOException.class, () -> strict.readData(csv.getPath()));
+            Assertions.assertTrue(bad.getMessage().startsWith("Line 3: "), bad.getMessage());
+            Assertions.assertEquals(List.of("One"), strict.getRange(null, null));
+            Assertions.assertTrue(strict.getLastLoad().isDone());
+            Assertions.assertNotNull(strict.getLastLoad().getFailure());
+
+            // a failed load doesn't stop the next one
+            strict.readData("songs.csv");
+            Assertions.assertEquals(602, strict.countInRange(null, null, null));
+        }
+        csv.delete();
+    }
+
+    /**
+     * Tests that generated csv files read back with the songs they were generated from,
+     * including titles with commas and quotes
+     */
+    @Test
+    public void backendTest19() throws IOException {
+
+        List<Song> sample = List.of(
+            new Song("Hey, Soul Sister", "Train", "neo mellow", 2010, 97, 89, 67, -4, 8),
+            new Song("He said \"hi\", twice", "A, B", "pop", 1999, 120, 50, 60, -7, 12));
+        StringWriter out = new StringWriter();
+        new SongCsvGenerator(new SongDistribution(sample)).write(out, 200, new java.util.Random(3));
+
+        File csv = File.createTempFile("generated", ".csv");
+        csv.deleteOnExit();
+        java.nio.file.Files.writeString(csv.toPath(), out.toString(), StandardCharsets.UTF_8);
+        List<Song> loaded = new ArrayList<>();
+        new Backend(new Tree_Placeholder() {
+            public void insert(Song song) { loaded.add(song); }
+        }).readData(csv.getPath());
+        csv.delete();
+
+        Assertions.assertEquals(200, loaded.size());
+        for (int row = 0; row < loaded.size(); row++) {
+            Song song = loaded.get(row);
+            String title = song.getTitle();
+            // the quotes SongRowParser can't read are left out, and everything else kept
+            Assertions.assertTrue(title.equals("Hey, Soul Sister " + row)
+                || title.equals("He said hi, twice " + row), title);
+            Assertions.assertTrue(song.getArtist().equals("Train") || song.getArtist().equals("A, B"),
+                song.getArtist());
+            Assertions.assertTrue(song.getYear() == 2010 || song.getYear() == 1999);
+            Assertions.assertTrue(song.getLoudness() == -4 || song.getLoudness() == -7);
+        }
+
+        // files generated from a csv file keep all of its columns
+        out = new StringWriter();
+        new SongCsvGenerator("songs.csv").write(out, 10, new java.util.Random(3));
+        String[] lines = out.toString().split("\n");
+        Assertions.assertEquals("title,artist,top genre,year,bpm,nrgy,dnce,dB,live,val,dur,acous,spch,pop",
+            lines[0]);
+        for (int row = 1; row < lines.length; row++) {
+            Assertions.assertEquals(14, SongRowParser.splitCSV(lines[row]).length, lines[row]);
+        }
+    }
+
+    /**
+     * Tests that a getRangePage cursor resumes its page without reading the titles of
+     * the songs before it at its energy
+     */
+    @Test
+    public void backendTest20() {
+
+        int[] titleReads = new int[1];
+        IterableRedBlackTree<Song> tree = new IterableRedBlackTree<>();
+        for (int i = 0; i < 2000; i++) {
+            String title = String.format("song %04d", i);
+            tree.insert(new Song(title, "artist", "genre", 2000, 100, 50, 50, -5, 10) {
+                @Override
+                public String getTitle() {
+                    titleReads[0]++;
+                    return super.getTitle();
+                }
+            });
+        }
+        Backend end = new Backend(tree);
+
+        SongPage page = end.getRangePage(50, 50, null, 10);
+        for (int i = 0; i < 150; i++) {
+            page = end.getRangePage(50, 50, page.getNext(), 10);
+        }
+        titleReads[0] = 0;
+        page = end.getRangePage(50, 50, page.getNext(), 10);
+        Assertions.assertEquals("song 1510", page.getTitles().get(0));
+        // a seek and a page of titles, rather than the 1510 songs before the cursor
+        Assertions.assertTrue(titleReads[0] < 100, titleReads[0] + " titles were read");
+    }
+
+    /**
+     * @return the body of a successful GET request to url, or the status code followed by
+     * the body of a failed one
+     */
+    private static String get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        int status = connection.getResponseCode();
+        InputStream body = status == 200 ? connection.getInputStream() : connection.getErrorStream();
+        String text = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        body.close();
+        return status == 200 ? text : status + " " + text;
+    }
+
      /**
      * Method designed to test basic functionality of app, see's if it can load a file, read it
      * and output desired songs
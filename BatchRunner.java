@@ -0,0 +1,137 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * This class runs a script of the Frontend's commands against a backend without menus or
+ * prompts, and writes one line of JSON for each command run, for scripts and load tests
+ * to read. Each line of a script holds one command and its arguments, separated by spaces:
+ * <pre>
+ * L songs.csv      load a csv file
+ * G 40 60          get the songs with Energy from 40 to 60, where - means no bound
+ * F 50             set the Danceability filter, or clear it when no threshold is given
+ * D                display the five most recent songs
+ * Q                stop the script
+ * </pre>
+ * Commands are case-insensitive, and blank lines and lines starting with # are skipped.
+ * Results look like {"line":2,"command":"G","count":1,"titles":["Hello"],"nanos":51200},
+ * and a command that fails gives {"line":3,"command":"F","error":"..."} and the script
+ * continues with the next command. Loads by a lenient backend that skip bad rows add the
+ * number skipped, like {"line":1,"command":"L","skipped":2,"nanos":81200}.
+ */
+public class BatchRunner {
+
+    private final BackendInterface backend;
+
+    /**
+     * Creates a runner for scripts of commands on the provided backend.
+     * @param backend the backend that runs the commands
+     */
+    public BatchRunner(BackendInterface backend) {
+        this.backend = backend;
+    }
+
+    /**
+     * Runs every command in a script, until its end or a Q command.
+     * @param script the lines of the script
+     * @param out where the result of each command is written, one per line
+     * @return the number of commands that failed
+     * @throws IOException when there is trouble reading the script or writing results
+     */
+    public int run(BufferedReader script, Writer out) throws IOException {
+        int failures = 0;
+        int lineNumber = 0;
+        String line;
+        StringBuilder result = new StringBuilder();
+        while ((line = script.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            // only the Q command itself quits, not other words starting with Q
+            if (line.split("\\s+", 2)[0].equalsIgnoreCase("Q")) {
+                break;
+            }
+
+            result.setLength(0);
+            if (!execute(lineNumber, line, result)) {
+                failures++;
+            }
+            result.append('\n');
+            out.append(result);
+        }
+        out.flush();
+        return failures;
+    }
+
+    /**
+     * Runs one command, and appends its result as a JSON object.
+     * @return true if the command succeeded, and false if it failed
+     */
+    private boolean execute(int lineNumber, String line, StringBuilder result) {
+        String[] words = line.split("\\s+", 2);
+        String command = words[0].toUpperCase();
+        String arguments = words.length > 1 ? words[1] : "";
+        result.append("{\"line\":").append(lineNumber).append(",\"command\":");
+        Json.appendString(result, command);
+
+        long start = System.nanoTime();
+        try {
+            List<String> titles;
+            switch (command) {
+                case "L":
+                    if (arguments.isEmpty()) {
+                        throw new IllegalArgumentException("L needs the name of a file to load");
+                    }
+                    backend.readData(arguments);
+                    titles = null;
+                    LoadProgress load = backend.getLastLoad();
+                    if (load != null && load.getErrors().getCount() > 0) {
+                        result.append(",\"skipped\":").append(load.getErrors().getCount());
+                    }
+                    break;
+                case "G":
+                    String[] bounds = arguments.isEmpty() ? new String[0] : arguments.split("\\s+");
+                    if (bounds.length > 2) {
+                        throw new IllegalArgumentException("G takes at most a minimum and maximum Energy");
+                    }
+                    titles = backend.getRange(bound(bounds, 0), bound(bounds, 1));
+                    break;
+                case "F":
+                    titles = backend.setFilter(arguments.isEmpty() ? null : Integer.valueOf(arguments));
+                    break;
+                case "D":
+                    titles = backend.fiveMost();
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command " + command);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (titles != null) {
+                result.append(",\"count\":").append(titles.size()).append(",\"titles\":");
+                Json.appendStrings(result, titles);
+            }
+            result.append(",\"nanos\":").append(elapsed).append('}');
+            return true;
+        } catch (IOException | RuntimeException e) {
+            result.append(",\"error\":");
+            Json.appendString(result, e.getMessage() == null ? e.toString() : e.getMessage());
+            result.append('}');
+            return false;
+        }
+    }
+
+    /**
+     * @return the Energy bound at position index of bounds, or null when it is missing or -
+     * @throws NumberFormatException when the bound is not a whole number
+     */
+    private static Integer bound(String[] bounds, int index) {
+        if (index >= bounds.length || bounds[index].equals("-")) {
+            return null;
+        }
+        return Integer.valueOf(bounds[index]);
+    }
+}
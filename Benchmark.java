@@ -0,0 +1,201 @@
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * This class is the harness shared by the benchmarks in this directory. Each measurement
+ * runs an operation for a number of untimed warmup rounds, so the JIT has compiled it,
+ * followed by timed rounds. For the timed rounds it reports the fastest and mean time,
+ * the bytes the operation allocated, and the number and duration of garbage collections
+ * that ran during the operation. Allocated bytes are those of the thread running the
+ * operation, plus those of the reader and parse threads of any CsvPipeline it ran.
+ * <p>
+ * Results are printed as a table. When the benchmark.csv system property names a file,
+ * each result is also appended to it as a csv row, so runs on different commits can be
+ * compared to track regressions:
+ * <pre>
+ * java -Dbenchmark.csv=results.csv BackendBenchmark 10000,1000000
+ * </pre>
+ */
+public class Benchmark {
+
+    // number of untimed rounds run before measuring, unless set by benchmark.warmup
+    public static final int DEFAULT_WARMUP_ROUNDS = 2;
+
+    // number of timed rounds, unless set by benchmark.rounds
+    public static final int DEFAULT_MEASURED_ROUNDS = 5;
+
+    private final int warmupRounds;
+    private final int measuredRounds;
+
+    // file csv rows are appended to, or null when results are only printed
+    private final String csvFile;
+
+    // sum of the values returned by operations, printed so the JIT cannot drop them
+    private long checksum = 0;
+
+    /**
+     * Creates a harness with the rounds set by the benchmark.warmup and benchmark.rounds
+     * system properties, or the default rounds when they are not set.
+     */
+    public Benchmark() {
+        this(Integer.getInteger("benchmark.warmup", DEFAULT_WARMUP_ROUNDS),
+            Integer.getInteger("benchmark.rounds", DEFAULT_MEASURED_ROUNDS));
+    }
+
+    /**
+     * Creates a harness with the provided number of rounds.
+     * @param warmupRounds the number of untimed rounds before measuring
+     * @param measuredRounds the number of timed rounds, at least 1
+     * @throws IllegalArgumentException when warmupRounds is negative or measuredRounds
+     * is less than 1
+     */
+    public Benchmark(int warmupRounds, int measuredRounds) {
+        if (warmupRounds < 0 || measuredRounds < 1) {
+            throw new IllegalArgumentException("Invalid benchmark rounds: " + warmupRounds
+                + " warmup, " + measuredRounds + " measured");
+        }
+        this.warmupRounds = warmupRounds;
+        this.measuredRounds = measuredRounds;
+        this.csvFile = System.getProperty("benchmark.csv");
+    }
+
+    /**
+     * Prints the header of the results table.
+     * @param title the line printed above the header, such as the catalog size
+     */
+    public void header(String title) {
+        System.out.println(title);
+        System.out.printf("  %-32s %10s %10s %14s %5s %8s%n",
+            "benchmark", "best ms", "mean ms", "bytes/op", "gcs", "gc ms");
+    }
+
+    /**
+     * Measures an operation that needs no setup.
+     * @param name the label of the result
+     * @param size the catalog size the operation works on, recorded with the result
+     * @param operation the operation, which returns a value that depends on its work
+     */
+    public void measure(String name, int size, LongSupplier operation) {
+        measure(name, size, () -> null, ignored -> operation.getAsLong());
+    }
+
+    /**
+     * Measures an operation on a fresh state created by setup before every round. Only
+     * the operation is timed, the setup is not.
+     * @param name the label of the result
+     * @param size the catalog size the operation works on, recorded with the result
+     * @param setup creates the state for one round, such as an empty tree
+     * @param operation the operation on that state, which returns a value that depends
+     *                  on its work
+     */
+    public <S> void measure(String name, int size, Supplier<S> setup,
+                            ToLongFunction<S> operation) {
+        long bestNanos = Long.MAX_VALUE;
+        long totalNanos = 0;
+        long bytes = Long.MAX_VALUE;
+        long collections = 0;
+        long collectionMillis = 0;
+        for (int round = 0; round < warmupRounds + measuredRounds; round++) {
+            S state = setup.get();
+            long allocatedBefore = allocatedBytes();
+            long collectionsBefore = collections();
+            long collectionMillisBefore = collectionMillis();
+            long start = System.nanoTime();
+            checksum += operation.applyAsLong(state);
+            long elapsed = System.nanoTime() - start;
+            if (round >= warmupRounds) {
+                bestNanos = Math.min(bestNanos, elapsed);
+                totalNanos += elapsed;
+                bytes = Math.min(bytes, allocatedBytes() - allocatedBefore);
+                collections += collections() - collectionsBefore;
+                collectionMillis += collectionMillis() - collectionMillisBefore;
+            }
+        }
+        report(name, size, bestNanos, totalNanos / measuredRounds, bytes, collections,
+            collectionMillis);
+    }
+
+    /**
+     * Prints a result, and appends it to the csv file if one is set.
+     */
+    private void report(String name, int size, long bestNanos, long meanNanos, long bytes,
+                        long collections, long collectionMillis) {
+        System.out.printf("  %-32s %10.2f %10.2f %14d %5d %8d%n", name, bestNanos / 1e6,
+            meanNanos / 1e6, bytes, collections, collectionMillis);
+        if (csvFile == null) {
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(csvFile, true))) {
+            out.println(name + "," + size + "," + bestNanos + "," + meanNanos + "," + bytes
+                + "," + collections + "," + collectionMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write benchmark results", e);
+        }
+    }
+
+    /**
+     * @return the sum of the values returned by every operation measured so far
+     */
+    public long checksum() {
+        return checksum;
+    }
+
+    /**
+     * Parses a comma separated list of catalog sizes, such as "10000,1000000".
+     * @param args the command line arguments, whose first element is the list if present
+     * @param defaults the list used when no arguments are provided
+     * @return the sizes, in order
+     */
+    public static int[] sizes(String[] args, String defaults) {
+        String[] sizes = (args.length > 0 ? args[0] : defaults).split(",");
+        int[] parsed = new int[sizes.length];
+        for (int i = 0; i < sizes.length; i++) {
+            parsed[i] = Integer.parseInt(sizes[i].trim());
+        }
+        return parsed;
+    }
+
+    /**
+     * @return the number of bytes allocated so far by the current thread and by the
+     * threads of every CsvPipeline run, which load files for the current thread, or 0
+     * when the JVM does not support measuring this
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean)
+                .getThreadAllocatedBytes(Thread.currentThread().getId())
+                + CsvPipeline.workerAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of garbage collections run so far by every collector
+     */
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, bean.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * @return the milliseconds spent so far in garbage collection by every collector
+     */
+    private static long collectionMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, bean.getCollectionTime());
+        }
+        return millis;
+    }
+}
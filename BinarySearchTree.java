@@ -1,3 +1,5 @@
+import java.util.Comparator;
+
 /**
  * This class contains various of methods that are needed to construct
  * and change a binary search tree
@@ -10,6 +12,33 @@ public class BinarySearchTree <T extends Comparable<T>> implements SortedCollect
      */
     protected BSTNode<T> root;
 
+    /**
+     * The ordering used to place values in the BST
+     */
+    protected final Comparator<? super T> comparator;
+
+    /**
+     * Creates an empty BST that orders its values by their natural ordering
+     */
+    public BinarySearchTree() {
+        this(Comparator.naturalOrder());
+    }
+
+    /**
+     * Creates an empty BST that orders its values using the provided comparator.
+     * Searches using a Comparable argument, like contains, compare that argument
+     * against the stored values, so it should agree with this comparator.
+     *
+     * @param comparator - the ordering used to place values in the tree
+     * @throws NullPointerException if comparator is null
+     */
+    public BinarySearchTree(Comparator<? super T> comparator) {
+        if (comparator == null) {
+            throw new NullPointerException("Comparator is null");
+        }
+        this.comparator = comparator;
+    }
+
     /**
      * Performs the naive binary search tree insert algorithm to recursively
      * insert the provided newNode (which has already been initialized with a
@@ -26,7 +55,7 @@ public class BinarySearchTree <T extends Comparable<T>> implements SortedCollect
 
 
         //If the new node is bigger or equal than subtree insert to the left
-        if (newNode.getData().compareTo(subtree.getData()) >= 0) {
+        if (comparator.compare(newNode.getData(), subtree.getData()) >= 0) {
 
             if (subtree.getRight() == null) {
                 subtree.setRight(newNode);
@@ -39,7 +68,7 @@ public class BinarySearchTree <T extends Comparable<T>> implements SortedCollect
 
         //If the new node is smaller than the subtree insert to the right
 
-        if (newNode.getData().compareTo(subtree.getData()) < 0) {
+        if (comparator.compare(newNode.getData(), subtree.getData()) < 0) {
 
             if (subtree.getLeft() == null) {
                 subtree.setLeft(newNode);
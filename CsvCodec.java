@@ -0,0 +1,39 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A compression format that Backend.readData can load csv files from, such as gzip. Files
+ * named like songs.csv.gz are decoded by the codec whose extension is "gz". Register
+ * other formats with Backend.addCodec, for example zstd, by wrapping the input stream of
+ * a zstd library under the extension "zst".
+ */
+public interface CsvCodec {
+
+    // gzip, for files ending in .csv.gz
+    CsvCodec GZIP = new CsvCodec() {
+        @Override
+        public String getExtension() {
+            return "gz";
+        }
+
+        @Override
+        public InputStream decode(InputStream compressed) throws IOException {
+            return new GZIPInputStream(compressed, 1 << 16);
+        }
+    };
+
+    /**
+     * @return the extension that follows .csv in the names of files in this format,
+     * without a leading dot
+     */
+    String getExtension();
+
+    /**
+     * Wraps a stream of compressed bytes in a stream of the bytes they decode to.
+     * @param compressed the bytes of the compressed file
+     * @return the decompressed bytes, which closes compressed when it is closed
+     * @throws IOException when compressed does not start like this format
+     */
+    InputStream decode(InputStream compressed) throws IOException;
+}
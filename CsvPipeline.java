@@ -0,0 +1,377 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * This class reads the rows of a csv file in three stages that run at the same time:
+ * <pre>
+ * reader thread      reads blocks of whole lines from the file
+ *   parse threads    turn each block into a batch of rows, several blocks at once
+ *     inserter       the thread calling run, which takes the batches in file order
+ * </pre>
+ * Bounded queues connect the stages, so a stage that falls behind makes the stages
+ * before it wait, rather than letting blocks pile up in memory, and the time to read a
+ * file is that of the slowest stage rather than the sum of all three. Blocks are
+ * numbered as they are read, and batches are handed to the inserter in that order, so
+ * rows arrive in the same order as reading the file line by line.
+ * <p>
+ * A row that fails to parse either stops the pipeline, or is skipped and reported with
+ * its line number. Lines are only counted for blocks as a whole, and each row is parsed
+ * inside a try block that is only left when a row fails, so files without bad rows pay
+ * nothing for this.
+ * <p>
+ * Lines are decoded as UTF-8, and end in \n or \r\n.
+ *
+ * @param <T> the type each row is parsed into
+ */
+public class CsvPipeline<T> {
+
+    // the bytes in each block, which grows when a line is longer than a block
+    private static final int BLOCK_SIZE = 1 << 18;
+
+    // bytes allocated by the reader and parse threads of every run
+    private static final LongAdder workerAllocations = new LongAdder();
+
+    private final int parseThreads;
+
+    /**
+     * Creates a pipeline that parses blocks with this many threads.
+     * @param parseThreads the number of parse threads, at least 1
+     * @throws IllegalArgumentException if parseThreads is less than 1
+     */
+    public CsvPipeline(int parseThreads) {
+        if (parseThreads < 1) {
+            throw new IllegalArgumentException("Need at least 1 parse thread: " + parseThreads);
+        }
+        this.parseThreads = parseThreads;
+    }
+
+    /**
+     * @return a number of parse threads that leaves a processor each for the reader
+     * and the inserter, from 1 to 8
+     */
+    public static int defaultParseThreads() {
+        return Math.max(1, Math.min(8, Runtime.getRuntime().availableProcessors() - 2));
+    }
+
+    /**
+     * Reads the first line of in, such as the header of a csv file, one byte at a time
+     * so none of the following lines are read.
+     * @return the line without its line ending, or null if in is empty
+     * @throws IOException when there is trouble reading in
+     */
+    public static String readLine(InputStream in) throws IOException {
+        byte[] line = new byte[256];
+        int length = 0;
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = (byte) b;
+        }
+        if (b < 0 && length == 0) {
+            return null;
+        }
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A block of whole lines, numbered in the order it was read.
+     */
+    private static class Block {
+        final long sequence;
+        final byte[] bytes;
+        final int length;
+
+        Block(long sequence, byte[] bytes, int length) {
+            this.sequence = sequence;
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The rows parsed from a block, with the number of lines in the block, the rows that
+     * failed to parse, and the error that stopped parsing early, if one did.
+     */
+    private static class Batch<T> {
+        final long sequence;
+        final List<T> rows;
+        final int lines;
+        // the index within the block of each row that failed, and its error, or null
+        // when every row was parsed
+        final List<Integer> failedLines;
+        final List<RuntimeException> failures;
+        final Error fatal;
+
+        Batch(long sequence, List<T> rows, int lines, List<Integer> failedLines,
+              List<RuntimeException> failures, Error fatal) {
+            this.sequence = sequence;
+            this.rows = rows;
+            this.lines = lines;
+            this.failedLines = failedLines;
+            this.failures = failures;
+            this.fatal = fatal;
+        }
+    }
+
+    // put after the last block, once for each parse thread
+    private static final Block END = new Block(-1, new byte[0], 0);
+
+    /**
+     * Reads the remaining lines of in, parsing each with parse, and passes batches of
+     * rows to insert on this thread, in the order the rows appear in in. When parse
+     * throws a RuntimeException for a row, the row is passed to skip, or when skip is
+     * null, the pipeline stops once the batches before it, and the rows before it in its
+     * block, have been inserted.
+     *
+     * @param in        the lines to read, usually following a header read by readLine
+     * @param firstLine the line number of the first line of in, such as 2 after a header
+     * @param parse     turns one line, without its line ending, into a row; called from
+     *                  many threads at once
+     * @param insert    receives each batch of rows; called only from this thread
+     * @param skip      receives the error and line number of each row that fails to
+     *                  parse, in file order, on this thread; or null to stop at the first
+     * @throws IOException when there is trouble reading in, including a RuntimeException
+     *                     thrown by in, or when a row fails to parse and skip is null,
+     *                     after the rows before it have been inserted
+     * @throws RuntimeException when insert or skip throws one
+     */
+    public void run(InputStream in, long firstLine, Function<String, T> parse,
+                    Consumer<List<T>> insert, ObjLongConsumer<RuntimeException> skip)
+            throws IOException {
+        BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(parseThreads * 2);
+        BlockingQueue<Batch<T>> batches = new ArrayBlockingQueue<>(parseThreads * 2);
+        Throwable[] readFailure = new Throwable[1];
+
+        List<Thread> threads = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            boolean stopped = false;
+            try {
+                read(in, blocks);
+            } catch (InterruptedException e) {
+                // stopped by the inserter, which no longer takes batches
+                stopped = true;
+            } catch (Throwable e) {
+                // an IOException, but also a RuntimeException from a codec's stream, or
+                // running out of memory for a line that never ends
+                readFailure[0] = e;
+            } finally {
+                countAllocations();
+                // without END the parse threads, and so the inserter, would wait forever
+                try {
+                    for (int i = 0; !stopped && i < parseThreads; i++) {
+                        blocks.put(END);
+                    }
+                } catch (InterruptedException e) {
+                    // stopped by the inserter
+                }
+            }
+        }, "csv reader");
+        threads.add(reader);
+        for (int i = 0; i < parseThreads; i++) {
+            threads.add(new Thread(() -> parseBlocks(blocks, batches, parse, skip != null),
+                "csv parser " + i));
+        }
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        try {
+            // batches that arrived before the batches that precede them
+            Map<Long, Batch<T>> early = new HashMap<>();
+            long next = 0;
+            // the line number of the first line of the next batch
+            long line = firstLine;
+            int finished = 0;
+            while (finished < parseThreads) {
+                Batch<T> batch = batches.take();
+                if (batch.rows == null) {
+                    finished++;
+                    continue;
+                }
+                early.put(batch.sequence, batch);
+                while ((batch = early.remove(next)) != null) {
+                    next++;
+                    if (!batch.rows.isEmpty()) {
+                        insert.accept(batch.rows);
+                    }
+                    if (batch.fatal != null) {
+                        throw batch.fatal;
+                    }
+                    for (int i = 0; batch.failures != null && i < batch.failures.size(); i++) {
+                        RuntimeException failure = batch.failures.get(i);
+                        long failedLine = line + batch.failedLines.get(i);
+                        if (skip == null) {
+                            throw new IOException("Line " + failedLine + ": "
+                                + LoadErrors.reason(failure), failure);
+                        }
+                        skip.accept(failure, failedLine);
+                    }
+                    line += batch.lines;
+                }
+            }
+            // the reader has finished, as every parse thread has seen its END
+            reader.join();
+            Throwable failure = readFailure[0];
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IOException("Could not read csv rows: " + failure, failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading csv rows");
+        } finally {
+            // stop the stages that are still running after a failure
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the bytes allocated so far by the reader and parse threads of every run,
+     * which each add their own once they have finished their work, and so before run
+     * returns. Benchmarks add this to the bytes allocated by the thread calling run,
+     * which only inserts the rows.
+     *
+     * @return the bytes allocated, or 0 when the JVM does not support measuring this
+     */
+    public static long workerAllocatedBytes() {
+        return workerAllocations.sum();
+    }
+
+    /**
+     * Adds the bytes allocated by the current thread, a reader or parse thread started
+     * for one run, to workerAllocatedBytes.
+     */
+    private static void countAllocations() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            long bytes = ((com.sun.management.ThreadMXBean) bean)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+            // -1 when measuring allocations is turned off
+            workerAllocations.add(Math.max(bytes, 0));
+        }
+    }
+
+    /**
+     * Reads in into blocks that end with a whole line, and puts them into blocks.
+     */
+    private static void read(InputStream in, BlockingQueue<Block> blocks)
+            throws IOException, InterruptedException {
+        long sequence = 0;
+        byte[] buffer = new byte[BLOCK_SIZE];
+        // the bytes at the start of buffer that belong to a line not yet ended
+        int carried = 0;
+        while (true) {
+            int read = in.readNBytes(buffer, carried, buffer.length - carried);
+            int length = carried + read;
+            if (read == 0 || length < buffer.length) {
+                // the end of the file, which may not end with a newline
+                if (length > 0) {
+                    blocks.put(new Block(sequence, buffer, length));
+                }
+                return;
+            }
+            int end = length;
+            while (end > 0 && buffer[end - 1] != '\n') {
+                end--;
+            }
+            if (end == 0) {
+                // a line longer than the buffer
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                carried = length;
+                continue;
+            }
+            byte[] next = new byte[Math.max(BLOCK_SIZE, length - end + 1)];
+            carried = length - end;
+            System.arraycopy(buffer, end, next, 0, carried);
+            blocks.put(new Block(sequence++, buffer, end));
+            buffer = next;
+        }
+    }
+
+    /**
+     * Parses blocks into batches until taking an END block, then puts a batch with no
+     * rows to tell the inserter this thread is done.
+     */
+    private void parseBlocks(BlockingQueue<Block> blocks, BlockingQueue<Batch<T>> batches,
+                             Function<String, T> parse, boolean lenient) {
+        try {
+            Block block;
+            while ((block = blocks.take()) != END) {
+                batches.put(parseBlock(block, parse, lenient));
+            }
+            countAllocations();
+            batches.put(new Batch<>(-1, null, 0, null, null, null));
+        } catch (InterruptedException e) {
+            // stopped by the inserter
+        }
+    }
+
+    /**
+     * Parses each line of a block, skipping the lines that fail when lenient, or
+     * otherwise stopping at the first.
+     */
+    private static <T> Batch<T> parseBlock(Block block, Function<String, T> parse,
+                                           boolean lenient) {
+        String text = new String(block.bytes, 0, block.length, StandardCharsets.UTF_8);
+        List<T> rows = new ArrayList<>(text.length() / 64 + 1);
+        List<Integer> failedLines = null;
+        List<RuntimeException> failures = null;
+        int start = 0;
+        int end = 0;
+        int line = 0;
+        while (start < text.length()) {
+            try {
+                while (start < text.length()) {
+                    end = text.indexOf('\n', start);
+                    if (end < 0) {
+                        end = text.length();
+                    }
+                    int lineEnd = end > start && text.charAt(end - 1) == '\r' ? end - 1 : end;
+                    rows.add(parse.apply(text.substring(start, lineEnd)));
+                    start = end + 1;
+                    line++;
+                }
+            } catch (RuntimeException e) {
+                if (failures == null) {
+                    failedLines = new ArrayList<>();
+                    failures = new ArrayList<>();
+                }
+                failedLines.add(line);
+                failures.add(e);
+                if (!lenient) {
+                    break;
+                }
+                start = end + 1;
+                line++;
+            } catch (Error e) {
+                return new Batch<>(block.sequence, rows, line, failedLines, failures, e);
+            }
+        }
+        return new Batch<>(block.sequence, rows, line, failedLines, failures, null);
+    }
+}
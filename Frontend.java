@@ -1,5 +1,8 @@
 import java.util.Scanner;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
 import java.util.InputMismatchException;
 import java.util.List;
 
@@ -21,16 +24,67 @@ public class Frontend implements FrontendInterface {
   private BackendInterface backend;
 
   /**
-   * Helper method for displaying a list of song titles to the user.
+   * Size of the buffer song titles are written through, in characters.
+   */
+  private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Buffered writer over the System.out in use when this Frontend was created, through which
+   * song titles are printed. Titles are written to the buffer, which reaches System.out only when
+   * it fills or a listing ends, rather than once per title.
+   */
+  private PrintWriter out;
+
+  /**
+   * Number of titles shown before asking the user whether to show more, or 0 to show all titles
+   * at once.
+   */
+  private int pageSize;
+
+  /**
+   * Whether files are loaded in the background, leaving the menu usable while they load, and
+   * whether songs are shown as they are loaded rather than once the load finishes.
+   */
+  private boolean loadInBackground = false;
+  private boolean showPartialLoads = false;
+
+  /**
+   * Progress of the file being loaded in the background, or null when no load has been started
+   * since the last one finished was reported.
+   */
+  private LoadProgress loading = null;
+
+  /**
+   * Helper method for displaying a list of song titles to the user. When a page size is set, the
+   * user is asked after each page whether to show more, and can enter Q to stop the listing.
    * 
    * @param songTitles The list of song titles to display.
    */
   private void displaySongTitles(List<String> songTitles) {
-    System.out.println("\nAvailable Songs:");
+    out.println();
+    out.println("Available Songs:");
 
     int cnt = 1;
-    for (String title : songTitles)
-      System.out.println("[" + (cnt++) + "] - " + title);
+    for (String title : songTitles) {
+      // Writing each part separately, so no String is built for the line.
+      out.print('[');
+      out.print(cnt);
+      out.print("] - ");
+      out.println(title);
+
+      if (pageSize > 0 && cnt % pageSize == 0 && cnt < songTitles.size()) {
+        out.print("-- " + (songTitles.size() - cnt) + " more, press Enter to continue or Q to stop --");
+        out.flush();
+        String answer = this.in.nextLine();
+        if (answer.trim().equalsIgnoreCase("Q")) {
+          break;
+        }
+      }
+      cnt++;
+    }
+
+    // Everything else is printed directly to System.out, so the listing is flushed before it.
+    out.flush();
   }
 
   /**
@@ -41,8 +95,86 @@ public class Frontend implements FrontendInterface {
    * @param backend The Backend reference to operate on user inputs.
    */
   public Frontend(Scanner in, BackendInterface backend) {
+    this(in, backend, 0);
+  }
+
+  /**
+   * Creates a new Frontend Instance that reads inputs from the Scanner and operates on the backend
+   * interface provided, showing long lists of songs one page at a time.
+   * 
+   * @param in       The Scanner reference to read inputs from.
+   * @param backend  The Backend reference to operate on user inputs.
+   * @param pageSize The number of song titles shown before asking the user whether to show more,
+   *                 or 0 to show all titles at once.
+   * @throws IllegalArgumentException if pageSize is negative.
+   */
+  public Frontend(Scanner in, BackendInterface backend, int pageSize) {
+    if (pageSize < 0) {
+      throw new IllegalArgumentException("Page size cannot be negative: " + pageSize);
+    }
     this.in = in;
     this.backend = backend;
+    this.pageSize = pageSize;
+    this.out = new PrintWriter(
+        new BufferedWriter(new OutputStreamWriter(System.out), OUTPUT_BUFFER_SIZE), false);
+  }
+
+  /**
+   * Chooses whether files are loaded in the background. While a file loads in the background,
+   * its progress is shown above the main menu, and songs can be queried.
+   * 
+   * @param enabled     Whether [L]oad returns to the main menu while the file is still loading.
+   * @param showPartial Whether queries made while loading include the songs loaded so far, or
+   *                    only the songs loaded before the file.
+   */
+  public void setBackgroundLoading(boolean enabled, boolean showPartial) {
+    this.loadInBackground = enabled;
+    this.showPartialLoads = showPartial;
+  }
+
+  /**
+   * Helper method that shows the progress of a background load, or its outcome once it is done.
+   */
+  private void displayLoadProgress() {
+    if (this.loading == null)
+      return;
+
+    if (!this.loading.isDone()) {
+      System.out.println(this.loading);
+      return;
+    }
+
+    if (this.loading.getFailure() == null) {
+      System.out.println("Load Successful! " + this.loading.getRows() + " songs loaded from "
+          + this.loading.getFilename() + ".");
+      displaySkippedRows(this.loading);
+    } else
+      System.out.println("Provided file could not be loaded: " + this.loading.getFailure().getMessage());
+    this.loading = null;
+  }
+
+  /**
+   * Helper method that tells the user another file can't be loaded until the current load is done.
+   *
+   * @param load the progress of the load still running, or null if the backend doesn't track loads
+   */
+  private void displayStillLoading(LoadProgress load) {
+    if (load == null)
+      System.out.println("A file is still loading. Please wait for it to finish and try again.");
+    else
+      System.out.println("A file is still loading (" + load.getPercentComplete()
+          + "% complete). Please wait for it to finish and try again.");
+  }
+
+  /**
+   * Displays a summary of the rows a lenient load skipped because they could not be
+   * parsed, if it skipped any.
+   *
+   * @param load the progress of the load, or null if the backend doesn't track loads
+   */
+  private void displaySkippedRows(LoadProgress load) {
+    if (load != null && load.getErrors().getCount() > 0)
+      System.out.println(load.getErrors());
   }
 
   /**
@@ -71,6 +203,7 @@ public class Frontend implements FrontendInterface {
 
     // Main loop when dealing with user input.
     while (true) { // Breaks out of loop when user enters [q] / [Q]
+      displayLoadProgress();
       displayMainMenu();
 
       System.out.print(">> ");
@@ -168,12 +301,20 @@ public class Frontend implements FrontendInterface {
    * scanner passed to the constructor to read user input and the backend passed to the constructor
    * to load the file provided by the user. If the backend indicates a problem with finding or
    * reading the file by throwing an IOException, a message is displayed to the user, and they will
-   * be asked to enter a new filename.
+   * be asked to enter a new filename. While another file is still loading, the user is told how far
+   * along it is and returned to the main menu.
    */
   @Override
   public void loadFile() {
     System.out.println("iSongly LOAD SONG FILE");
 
+    // Only one file can load at a time.
+    LoadProgress current = this.backend.getLastLoad();
+    if (current != null && !current.isDone()) {
+      displayStillLoading(current);
+      return;
+    }
+
     // Main Loop for dealing with user inputs.
     while (true) { // Only repeats if the user's input is invalid.
 
@@ -195,8 +336,15 @@ public class Frontend implements FrontendInterface {
           continue;
         }
 
+        if (this.loadInBackground) {
+          this.loading = this.backend.readDataAsync(inputFilepath.trim(), this.showPartialLoads);
+          System.out.println("Loading in the background. Progress is shown above the main menu.");
+          break;
+        }
+
         this.backend.readData(inputFilepath.trim());
         System.out.println("Load Successful!");
+        displaySkippedRows(this.backend.getLastLoad());
         break;
 
       } catch (IOException e) { // Thrown by Backend when reading data from the provided CSV File.
@@ -207,6 +355,13 @@ public class Frontend implements FrontendInterface {
 
         // Go back to beginning.
         continue;
+      } catch (IllegalStateException e) { // Thrown by Backend when a load started since the check.
+
+        // Displaying Error Message.
+        displayStillLoading(this.backend.getLastLoad());
+
+        // Go back to main menu.
+        break;
       } catch (Exception e) { // Unexpected Exception was Encountered.
 
         // Displaying Error Message.
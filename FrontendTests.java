@@ -1,6 +1,10 @@
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Assertions;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.Scanner;
 
 /**
@@ -142,4 +146,127 @@ public class FrontendTests {
     }
 
   }
+
+  /**
+   * Tests that song titles are shown one page at a time when a page size is set, and that the
+   * user can stop the listing after a page. Uses the Backend Placeholder, which has 3 songs.
+   */
+  @Test
+  public void roleTest4() {
+    { // Stop after the first page of 2 songs.
+      Scanner sc = new Scanner("q\n");
+      TextUITester uiTester = new TextUITester("");
+
+      IterableSortedCollection<Song> tree = new Tree_Placeholder();
+      BackendInterface backend = new Backend_Placeholder(tree);
+      FrontendInterface frontend = new Frontend(sc, backend, 2);
+
+      frontend.displayTopFive();
+
+      String out = uiTester.checkOutput();
+      Assertions.assertTrue(out.contains("[2] - "), "First page not displayed.");
+      Assertions.assertTrue(out.contains("1 more"), "More prompt not displayed.");
+      Assertions.assertFalse(out.contains("[3] - "), "Displayed songs after the user stopped.");
+    }
+
+    { // Continue to the second page.
+      Scanner sc = new Scanner("\n");
+      TextUITester uiTester = new TextUITester("");
+
+      IterableSortedCollection<Song> tree = new Tree_Placeholder();
+      BackendInterface backend = new Backend_Placeholder(tree);
+      FrontendInterface frontend = new Frontend(sc, backend, 2);
+
+      frontend.displayTopFive();
+
+      String out = uiTester.checkOutput();
+      Assertions.assertTrue(out.contains("Cake By The Ocean") && out.contains("BO$$")
+          && out.contains("A L I E N S"), "Not all songs displayed.");
+    }
+  }
+
+  /**
+   * Tests that batch mode runs a script of commands without menus, writing one JSON result per
+   * command, and reports failed commands without stopping. Uses the Backend Placeholder.
+   */
+  @Test
+  public void roleTest5() throws IOException {
+    IterableSortedCollection<Song> tree = new Tree_Placeholder();
+    BackendInterface backend = new Backend_Placeholder(tree);
+    StringWriter out = new StringWriter();
+
+    int failures = new BatchRunner(backend).run(
+        new BufferedReader(new StringReader("# a comment\nd\n\nF 50\nZ\nG 2 x\nQ\nD\n")), out);
+
+    String[] results = out.toString().split("\n");
+    Assertions.assertEquals(2, failures, "Expected the Z and G commands to fail.");
+    Assertions.assertEquals(4, results.length, "Expected one result per command before Q.");
+    Assertions.assertFalse(out.toString().contains("MAIN MENU"), "Displayed the menu in batch mode.");
+    Assertions.assertTrue(results[0].startsWith("{\"line\":2,\"command\":\"D\",\"count\":3,"),
+        results[0]);
+    Assertions.assertTrue(results[0].contains("\"BO$$\""), results[0]);
+    Assertions.assertTrue(results[1].startsWith("{\"line\":4,\"command\":\"F\""), results[1]);
+    Assertions.assertTrue(results[2].contains("\"error\":\"Unknown command Z\""), results[2]);
+    Assertions.assertTrue(results[3].contains("\"error\""), results[3]);
+
+    // Only the Q command quits, not another word starting with Q.
+    out = new StringWriter();
+    failures = new BatchRunner(backend).run(new BufferedReader(new StringReader("Quux\nD\nq\nD\n")), out);
+    results = out.toString().split("\n");
+    Assertions.assertEquals(1, failures, "Expected the Quux command to fail.");
+    Assertions.assertEquals(2, results.length, "Expected Quux to run as a command and q to quit.");
+    Assertions.assertTrue(results[0].contains("\"error\":\"Unknown command QUUX\""), results[0]);
+  }
+
+  /**
+   * Tests that loading a file while another is still loading tells the user how far along the
+   * other load is, instead of reporting an unexpected exception.
+   */
+  @Test
+  public void roleTest6() {
+    LoadProgress running = new LoadProgress("big.csv", 200);
+    running.addBytes(50);
+
+    { // The backend reports a load that is still running.
+      Scanner sc = new Scanner("songs.csv\n");
+      TextUITester uiTester = new TextUITester("");
+
+      BackendInterface backend = new Backend_Placeholder(new Tree_Placeholder()) {
+        @Override
+        public LoadProgress getLastLoad() {
+          return running;
+        }
+      };
+      new Frontend(sc, backend).loadFile();
+
+      String out = uiTester.checkOutput();
+      Assertions.assertTrue(out.contains("A file is still loading (25% complete)"), out);
+      Assertions.assertFalse(out.contains("filepath"), "Asked for a file while loading.");
+    }
+
+    { // A load starts after the check, and the backend refuses the new one.
+      Scanner sc = new Scanner("songs.csv\n");
+      TextUITester uiTester = new TextUITester("");
+
+      BackendInterface backend = new Backend_Placeholder(new Tree_Placeholder()) {
+        private boolean started = false;
+
+        @Override
+        public void readData(String filename) {
+          started = true;
+          throw new IllegalStateException("Still loading big.csv");
+        }
+
+        @Override
+        public LoadProgress getLastLoad() {
+          return started ? running : null;
+        }
+      };
+      new Frontend(sc, backend).loadFile();
+
+      String out = uiTester.checkOutput();
+      Assertions.assertTrue(out.contains("A file is still loading (25% complete)"), out);
+      Assertions.assertFalse(out.contains("Unexpected Exception"), out);
+    }
+  }
 }
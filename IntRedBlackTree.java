@@ -0,0 +1,178 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * This class is a red black tree keyed by primitive ints, that stores a value with each
+ * key. Keys live in an int[] alongside the node links, so inserting and searching never
+ * box a key into an Integer. Duplicate keys are allowed, and values with equal keys are
+ * kept in the order they were inserted.
+ * <p>
+ * Ranges can be walked without allocating: ceiling finds the first node of a range,
+ * and successor steps to the next node, with keyOf and valueOf reading each node:
+ * <pre>
+ * for (int node = index.ceiling(low); node != IntRedBlackTree.NONE
+ *         &amp;&amp; index.keyOf(node) &lt;= high; node = index.successor(node)) { ... }
+ * </pre>
+ */
+public class IntRedBlackTree<V> extends AbstractArrayRedBlackTree {
+
+    // handle returned when there is no such node
+    public static final int NONE = NIL;
+
+    // node keys and values, indexed by node handle
+    protected int[] keys;
+    protected Object[] values;
+
+    /**
+     * Creates an empty tree.
+     */
+    public IntRedBlackTree() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    protected void allocate(int capacity) {
+        super.allocate(capacity);
+        keys = new int[capacity];
+        values = new Object[capacity];
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        super.resize(capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    /**
+     * Inserts a value under key, after any values already inserted with an equal key.
+     * @param key the key that orders the value
+     * @param value the value to store, which may be null
+     */
+    public void insert(int key, V value) {
+        // walk down to the empty child position where key belongs
+        int up = NIL;
+        int current = root;
+        boolean goRight = false;
+        while (current != NIL) {
+            up = current;
+            goRight = key >= keys[current];
+            current = goRight ? right[current] : left[current];
+        }
+
+        int newNode = newNode();
+        keys[newNode] = key;
+        values[newNode] = value;
+        attach(newNode, up, goRight);
+    }
+
+    /**
+     * @return true if at least one value is stored under key, and false otherwise
+     */
+    public boolean containsKey(int key) {
+        int current = root;
+        while (current != NIL) {
+            if (key == keys[current]) {
+                return true;
+            }
+            current = key > keys[current] ? right[current] : left[current];
+        }
+        return false;
+    }
+
+    /**
+     * Finds the first node, in key order, whose key is at least min.
+     * @return the handle of that node, or NONE if every key is smaller than min
+     */
+    public int ceiling(int min) {
+        int found = NIL;
+        int current = root;
+        while (current != NIL) {
+            if (keys[current] < min) {
+                current = right[current];
+            } else {
+                found = current;
+                current = left[current];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the first node, in key order, whose key is larger than key, or equal to key
+     * with a value that target does not place after. Values with equal keys must have
+     * been inserted in target's order, such as an index built from values sorted by key
+     * and then by value, so a range can be resumed after a value without walking the
+     * values before it, for example:
+     * index.ceiling(50, song -> title.compareTo(song.getTitle()))
+     * @param key the smallest key of the node found
+     * @param target compared against the values with that key, by target.compareTo(value)
+     * @return the handle of that node, or NONE if there is no such node
+     */
+    public int ceiling(int key, Comparable<? super V> target) {
+        int found = NIL;
+        int current = root;
+        while (current != NIL) {
+            if (keys[current] < key
+                    || (keys[current] == key && target.compareTo(valueOf(current)) > 0)) {
+                current = right[current];
+            } else {
+                found = current;
+                current = left[current];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the handle of the node with the smallest key, or NONE if the tree is empty
+     */
+    public int first() {
+        return ceiling(Integer.MIN_VALUE);
+    }
+
+    /**
+     * @return the key of the node with this handle
+     */
+    public int keyOf(int node) {
+        return keys[node];
+    }
+
+    /**
+     * @return the value of the node with this handle
+     */
+    @SuppressWarnings("unchecked")
+    public V valueOf(int node) {
+        return (V) values[node];
+    }
+
+    /**
+     * Returns an iterator over the values whose keys are from min to max, inclusive, in
+     * key order.
+     * @param min the smallest key to include
+     * @param max the largest key to include
+     * @return the iterator, which has no values when min is larger than max
+     */
+    public Iterator<V> iterator(int min, int max) {
+        return new Iterator<V>() {
+            private int next = ceiling(min);
+
+            @Override
+            public boolean hasNext() {
+                return next != NIL && keys[next] <= max;
+            }
+
+            @Override
+            public V next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("There is no element left in the list");
+                }
+                int current = next;
+                next = successor(current);
+                return valueOf(current);
+            }
+        };
+    }
+
+}
@@ -0,0 +1,100 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Tests for IntRedBlackTree.
+ */
+public class IntRedBlackTreeTests {
+
+    /**
+     * Test that random keys with duplicates are walked in key order, with equal keys in
+     * insertion order, and that the red black properties hold
+     */
+    @Test
+    public void intRedBlackTreeTest1() {
+        IntRedBlackTree<Integer> tree = new IntRedBlackTree<>();
+        List<int[]> expected = new ArrayList<>();
+        Random random = new Random(400);
+        for (int i = 0; i < 1000; i++) {
+            int key = random.nextInt(200) - 100;
+            tree.insert(key, i);
+            expected.add(new int[] {key, i});
+        }
+        // a stable sort on key leaves equal keys in insertion order
+        expected.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        Assertions.assertEquals(1000, tree.size());
+        Assertions.assertTrue(tree.checkedBlackHeight(tree.root) > 0, "red black properties broken");
+
+        int i = 0;
+        for (int node = tree.first(); node != IntRedBlackTree.NONE; node = tree.successor(node)) {
+            Assertions.assertEquals(expected.get(i)[0], tree.keyOf(node));
+            Assertions.assertEquals(expected.get(i)[1], tree.valueOf(node));
+            i++;
+        }
+        Assertions.assertEquals(1000, i);
+    }
+
+    /**
+     * Test that range iteration includes both bounds, and that empty ranges and missing
+     * keys are handled
+     */
+    @Test
+    public void intRedBlackTreeTest2() {
+        IntRedBlackTree<String> tree = new IntRedBlackTree<>();
+        tree.insert(30, "thirty");
+        tree.insert(10, "ten");
+        tree.insert(25, "twenty-five");
+        tree.insert(10, "another ten");
+        tree.insert(5, "five");
+
+        Iterator<String> iterator = tree.iterator(10, 25);
+        Assertions.assertEquals("ten", iterator.next());
+        Assertions.assertEquals("another ten", iterator.next());
+        Assertions.assertEquals("twenty-five", iterator.next());
+        Assertions.assertFalse(iterator.hasNext());
+
+        Assertions.assertFalse(tree.iterator(26, 29).hasNext());
+        Assertions.assertFalse(tree.iterator(20, 10).hasNext());
+        Assertions.assertTrue(tree.containsKey(25));
+        Assertions.assertFalse(tree.containsKey(26));
+        Assertions.assertEquals(IntRedBlackTree.NONE, tree.ceiling(31));
+
+        tree.clear();
+        Assertions.assertTrue(tree.isEmpty());
+        Assertions.assertEquals(IntRedBlackTree.NONE, tree.first());
+    }
+
+    /**
+     * Test that ceiling with a target finds the first value at a key that the target
+     * does not place after, and moves on to larger keys past the last of them
+     */
+    @Test
+    public void intRedBlackTreeTest3() {
+        IntRedBlackTree<String> tree = new IntRedBlackTree<>();
+        for (int key = 0; key < 50; key++) {
+            for (char value = 'b'; value <= 'y'; value += 2) {
+                tree.insert(key, String.valueOf(value));
+            }
+        }
+
+        int node = tree.ceiling(20, value -> "f".compareTo(value));
+        Assertions.assertEquals(20, tree.keyOf(node));
+        Assertions.assertEquals("f", tree.valueOf(node));
+        node = tree.ceiling(20, value -> "g".compareTo(value));
+        Assertions.assertEquals(20, tree.keyOf(node));
+        Assertions.assertEquals("h", tree.valueOf(node));
+        node = tree.ceiling(20, value -> "a".compareTo(value));
+        Assertions.assertEquals("b", tree.valueOf(node));
+        Assertions.assertEquals(20, tree.keyOf(node));
+        node = tree.ceiling(20, value -> "z".compareTo(value));
+        Assertions.assertEquals(21, tree.keyOf(node));
+        Assertions.assertEquals("b", tree.valueOf(node));
+        Assertions.assertEquals(IntRedBlackTree.NONE, tree.ceiling(49, value -> "z".compareTo(value)));
+    }
+
+}
@@ -1,16 +1,35 @@
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.Stack;
-import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.Assertions;
 
 /**
  * This class extends RedBlackTree into a tree that supports iterating over the values it
- * stores in sorted, ascending order.
+ * stores in sorted, ascending order. The order is the values' natural ordering, unless a
+ * comparator is passed to the constructor, so the same values can be stored in several
+ * trees that each order them differently.
  */
 public class IterableRedBlackTree<T extends Comparable<T>>
         extends RedBlackTree<T> implements IterableSortedCollection<T> {
 
+    /**
+     * Creates an empty tree that iterates over its values in their natural ordering.
+     */
+    public IterableRedBlackTree() {
+        super();
+    }
+
+    /**
+     * Creates an empty tree that iterates over its values in the order defined by the
+     * provided comparator. The bounds passed to setIteratorMin and setIteratorMax are
+     * compared against the stored values, so they should agree with this comparator,
+     * for example: tree.setIteratorMin(song -> Integer.compare(50, song.getEnergy()))
+     * @param comparator the ordering used to place values in the tree
+     */
+    public IterableRedBlackTree(Comparator<? super T> comparator) {
+        super(comparator);
+    }
+
     // Stores the min value for the iterator
     private Comparable<T> iteratorMin = null;
 
@@ -153,99 +172,4 @@ public class IterableRedBlackTree<T extends Comparable<T>>
 
     //Test cases
 
-    /**
-     * Test to see if the integers are sorted in the right order with no duplicates
-     * and a starting min value
-     */
-    @Test
-    public void iteratorTest1(){
-        IterableRedBlackTree<Integer> testRBT = new IterableRedBlackTree<>();
-        //Insert values in the tree
-        testRBT.insert(30);
-        testRBT.insert(10);
-        testRBT.insert(25);
-        testRBT.insert(15);
-        testRBT.insert(20);
-        testRBT.insert(5);
-
-        //5 should not be in the list since it is less than 9
-        testRBT.setIteratorMin(9);
-        //Sorts the list
-        Iterator<Integer> test = testRBT.iterator();
-
-        int[] expected = {10, 15, 20, 25, 30};
-        int i = 0;
-
-        //Checks if the value in the expected array matches up correctly 
-        while(test.hasNext()) {
-            Assertions.assertEquals(expected[i], test.next());
-            i++;
-        }
-    }
-
-    /**
-     * Test to see if strings with duplicates are sorted in the right order and if the
-     * list stops at the max value
-     */
-    @Test
-    public void iteratorTest2(){
-        IterableRedBlackTree<String> testRBT = new IterableRedBlackTree<>();
-        //Insert values in the tree
-        testRBT.insert("c");
-        testRBT.insert("c");
-        testRBT.insert("z");
-        testRBT.insert("a");
-        testRBT.insert("b");
-        testRBT.insert("a");
-        testRBT.insert("d");
-        testRBT.insert("h");
-
-        //"z" and "h" should not be in the list because they come after "g"
-        //which is the max
-        testRBT.setIteratorMax("g");
-        //Sorts the list
-        Iterator<String> test2 = testRBT.iterator();
-
-        String[] expected = {"a", "a", "b", "c", "c", "d"};
-        int i = 0;
-
-        //Checks if the value in the expected array matches up correctly
-        while(test2.hasNext()){
-            Assertions.assertEquals(expected[i], test2.next());
-            i++;
-        }
-    }
-
-    /**
-     * Test with duplicates and a min and max value in the list that prevents certain
-     * elements from entering the list. Checks if it sorts eligible integers in the
-     * right order
-     */
-    @Test
-    public void iteratorTest3(){
-        IterableRedBlackTree<Integer> testRBT = new IterableRedBlackTree<>();
-        //Insert values in the tree
-        testRBT.insert(30);
-        testRBT.insert(10);
-        testRBT.insert(25);
-        testRBT.insert(15);
-        testRBT.insert(10);
-        testRBT.insert(5);
-        testRBT.insert(30);
-
-        //5 and the duplicates of 30 should not be in the list
-        testRBT.setIteratorMin(9);
-        testRBT.setIteratorMax(26);
-        //Sorts the list
-        Iterator<Integer> test3 = testRBT.iterator();
-
-        int[] expected = {10, 10, 15, 25};
-        int i = 0;
-
-        //Checks if the value in the expected array matches up correctly
-        while(test3.hasNext()) {
-            Assertions.assertEquals(expected[i], test3.next());
-            i++;
-        }
-    }
 }
@@ -0,0 +1,135 @@
+import java.util.Iterator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Tests for IterableRedBlackTree.
+ */
+public class IterableRedBlackTreeTests {
+
+    /**
+     * Test to see if the integers are sorted in the right order with no duplicates
+     * and a starting min value
+     */
+    @Test
+    public void iteratorTest1(){
+        IterableRedBlackTree<Integer> testRBT = new IterableRedBlackTree<>();
+        //Insert values in the tree
+        testRBT.insert(30);
+        testRBT.insert(10);
+        testRBT.insert(25);
+        testRBT.insert(15);
+        testRBT.insert(20);
+        testRBT.insert(5);
+
+        //5 should not be in the list since it is less than 9
+        testRBT.setIteratorMin(9);
+        //Sorts the list
+        Iterator<Integer> test = testRBT.iterator();
+
+        int[] expected = {10, 15, 20, 25, 30};
+        int i = 0;
+
+        //Checks if the value in the expected array matches up correctly 
+        while(test.hasNext()) {
+            Assertions.assertEquals(expected[i], test.next());
+            i++;
+        }
+    }
+
+    /**
+     * Test to see if strings with duplicates are sorted in the right order and if the
+     * list stops at the max value
+     */
+    @Test
+    public void iteratorTest2(){
+        IterableRedBlackTree<String> testRBT = new IterableRedBlackTree<>();
+        //Insert values in the tree
+        testRBT.insert("c");
+        testRBT.insert("c");
+        testRBT.insert("z");
+        testRBT.insert("a");
+        testRBT.insert("b");
+        testRBT.insert("a");
+        testRBT.insert("d");
+        testRBT.insert("h");
+
+        //"z" and "h" should not be in the list because they come after "g"
+        //which is the max
+        testRBT.setIteratorMax("g");
+        //Sorts the list
+        Iterator<String> test2 = testRBT.iterator();
+
+        String[] expected = {"a", "a", "b", "c", "c", "d"};
+        int i = 0;
+
+        //Checks if the value in the expected array matches up correctly
+        while(test2.hasNext()){
+            Assertions.assertEquals(expected[i], test2.next());
+            i++;
+        }
+    }
+
+    /**
+     * Test with duplicates and a min and max value in the list that prevents certain
+     * elements from entering the list. Checks if it sorts eligible integers in the
+     * right order
+     */
+    @Test
+    public void iteratorTest3(){
+        IterableRedBlackTree<Integer> testRBT = new IterableRedBlackTree<>();
+        //Insert values in the tree
+        testRBT.insert(30);
+        testRBT.insert(10);
+        testRBT.insert(25);
+        testRBT.insert(15);
+        testRBT.insert(10);
+        testRBT.insert(5);
+        testRBT.insert(30);
+
+        //5 and the duplicates of 30 should not be in the list
+        testRBT.setIteratorMin(9);
+        testRBT.setIteratorMax(26);
+        //Sorts the list
+        Iterator<Integer> test3 = testRBT.iterator();
+
+        int[] expected = {10, 10, 15, 25};
+        int i = 0;
+
+        //Checks if the value in the expected array matches up correctly
+        while(test3.hasNext()) {
+            Assertions.assertEquals(expected[i], test3.next());
+            i++;
+        }
+    }
+
+    /**
+     * Test that a tree created with a comparator iterates in that comparator's order, and
+     * that the iterator bounds can be expressed against that order
+     */
+    @Test
+    public void iteratorTest4(){
+        IterableRedBlackTree<Song> testRBT = new IterableRedBlackTree<>(SongComparators.BY_ENERGY);
+        //Insert songs in the tree, title order differs from energy order
+        testRBT.insert(new Song("A", "artist", "pop", 2010, 100, 90, 50, -5, 10));
+        testRBT.insert(new Song("B", "artist", "pop", 2011, 100, 30, 50, -5, 10));
+        testRBT.insert(new Song("C", "artist", "pop", 2012, 100, 60, 50, -5, 10));
+        testRBT.insert(new Song("D", "artist", "pop", 2013, 100, 10, 50, -5, 10));
+
+        //Only songs with energy from 20 to 80 should be in the list
+        testRBT.setIteratorMin(song -> Integer.compare(20, song.getEnergy()));
+        testRBT.setIteratorMax(song -> Integer.compare(80, song.getEnergy()));
+        Iterator<Song> test4 = testRBT.iterator();
+
+        String[] expected = {"B", "C"};
+        int i = 0;
+
+        //Checks if the value in the expected array matches up correctly
+        while(test4.hasNext()) {
+            Assertions.assertEquals(expected[i], test4.next().getTitle());
+            i++;
+        }
+        Assertions.assertEquals(expected.length, i);
+    }
+
+}
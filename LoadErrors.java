@@ -0,0 +1,91 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class records the rows a lenient load skipped because they could not be parsed,
+ * see Backend.setLenient: how many there were, of which kinds, and the line number and
+ * reason of the first few. Loads of millions of rows can skip millions of bad rows, so
+ * only the first MAX_SAMPLES are kept in full. The loading thread records rows while
+ * other threads read the summary.
+ */
+public class LoadErrors {
+
+    // the most rows whose line number and reason are kept
+    public static final int MAX_SAMPLES = 20;
+
+    private long count = 0;
+    // the number of rows skipped for each kind of error, in the order first seen
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final List<String> samples = new ArrayList<>();
+
+    /**
+     * Records that a row was skipped.
+     * @param line the line number of the row in its file, starting from 1 for the header
+     * @param error the reason the row could not be parsed
+     */
+    public synchronized void record(long line, RuntimeException error) {
+        count++;
+        counts.merge(error.getClass().getSimpleName(), 1L, Long::sum);
+        if (samples.size() < MAX_SAMPLES) {
+            samples.add("line " + line + ": " + reason(error));
+        }
+    }
+
+    /**
+     * @return the message of error, or its name if it has no message
+     */
+    static String reason(RuntimeException error) {
+        return error.getMessage() == null ? error.toString() : error.getMessage();
+    }
+
+    /**
+     * @return the number of rows skipped
+     */
+    public synchronized long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the number of rows skipped for each kind of error, such as
+     * NumberFormatException, in the order first seen
+     */
+    public synchronized Map<String, Long> getCounts() {
+        return new LinkedHashMap<>(counts);
+    }
+
+    /**
+     * @return the line number and reason of the first MAX_SAMPLES rows skipped, like
+     * "line 12: year is not a whole number: 20x0"
+     */
+    public synchronized List<String> getSamples() {
+        return new ArrayList<>(samples);
+    }
+
+    /**
+     * @return a summary of the rows skipped, with the line number and reason of each
+     * sampled row on a line of its own
+     */
+    @Override
+    public synchronized String toString() {
+        if (count == 0) {
+            return "No bad rows skipped";
+        }
+        StringBuilder summary = new StringBuilder();
+        summary.append(count).append(count == 1 ? " bad row" : " bad rows").append(" skipped (");
+        String separator = "";
+        for (Map.Entry<String, Long> kind : counts.entrySet()) {
+            summary.append(separator).append(kind.getValue()).append(' ').append(kind.getKey());
+            separator = ", ";
+        }
+        summary.append(')');
+        for (String sample : samples) {
+            summary.append("\n  ").append(sample);
+        }
+        if (count > samples.size()) {
+            summary.append("\n  and ").append(count - samples.size()).append(" more");
+        }
+        return summary.toString();
+    }
+}
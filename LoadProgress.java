@@ -0,0 +1,123 @@
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * This class tracks a csv file being loaded by BackendInterface.readDataAsync: how many
+ * bytes and rows have been read so far, how fast, and whether the load has finished or
+ * failed. The loading thread updates it while other threads read it.
+ */
+public class LoadProgress {
+
+    private final String filename;
+    private final long totalBytes;
+    private final long startNanos = System.nanoTime();
+
+    private volatile long bytesRead = 0;
+    private volatile long rows = 0;
+    private volatile long finishNanos = 0;
+    private volatile IOException failure = null;
+    private final LoadErrors errors = new LoadErrors();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Creates the progress of a load that is starting now.
+     * @param filename the name of the file being loaded
+     * @param totalBytes the size of the file, or 0 if it is unknown
+     */
+    public LoadProgress(String filename, long totalBytes) {
+        this.filename = filename;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Records that more of the file has been read. Only one thread calls this, which is
+     * the thread decompressing the file when it is compressed.
+     */
+    public void addBytes(long bytes) {
+        bytesRead += bytes;
+    }
+
+    /**
+     * Records that more rows have been read. Only the loading thread calls this.
+     */
+    public void addRows(long count) {
+        rows += count;
+    }
+
+    /**
+     * Records that the load has finished, and wakes any thread waiting in await.
+     * @param failure the reason the load stopped early, or null if it succeeded
+     */
+    public void finish(IOException failure) {
+        this.failure = failure;
+        this.finishNanos = System.nanoTime();
+        finished.countDown();
+    }
+
+    public String getFilename() { return filename; }
+    public long getBytesRead() { return bytesRead; }
+    public long getTotalBytes() { return totalBytes; }
+    public long getRows() { return rows; }
+
+    /**
+     * @return the rows skipped so far because they could not be parsed, which is always
+     * empty unless the load is lenient
+     */
+    public LoadErrors getErrors() { return errors; }
+
+    /**
+     * @return true once the load has succeeded or failed, and false while it is running
+     */
+    public boolean isDone() {
+        return finished.getCount() == 0;
+    }
+
+    /**
+     * @return the reason the load failed, or null if it succeeded or is still running
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return the percentage of the file's bytes read so far, from 0 to 100
+     */
+    public int getPercentComplete() {
+        if (isDone() && failure == null) {
+            return 100;
+        }
+        if (totalBytes <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, bytesRead * 100 / totalBytes);
+    }
+
+    /**
+     * @return the rows read per second since the load started, until it finished
+     */
+    public long getRowsPerSecond() {
+        long end = isDone() ? finishNanos : System.nanoTime();
+        long elapsed = Math.max(1, end - startNanos);
+        return rows * 1_000_000_000L / elapsed;
+    }
+
+    /**
+     * Waits for the load to finish.
+     * @throws IOException when the load failed
+     * @throws InterruptedException when the waiting thread is interrupted
+     */
+    public void await() throws IOException, InterruptedException {
+        finished.await();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        long skipped = errors.getCount();
+        return "Loading " + filename + ": " + getPercentComplete() + "% complete, " + rows
+            + " songs, " + getRowsPerSecond() + " songs per second"
+            + (skipped == 0 ? "" : ", " + skipped + " bad rows skipped");
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * This class is a Song read from a MappedSongFile. It holds its packed numeric attributes
+ * like any song, but only the file and the song's row for its title, artist and genre,
+ * which are decoded from the mapped file each time they are asked for. Songs of the same
+ * file are compared by title without decoding either title, see
+ * MappedSongFile.compareTitles.
+ */
+public class MappedSong extends Song {
+
+    private final MappedSongFile file;
+    private final int row;
+
+    /**
+     * Creates a song backed by this row of file. Use MappedSongFile.next to create these.
+     */
+    MappedSong(MappedSongFile file, int row, long attributes) {
+	super(null, null, null, attributes);
+	this.file = file;
+	this.row = row;
+    }
+
+    /**
+     * @return the index of this song's row within its file
+     */
+    public int getRow() { return row; }
+
+    // accessors
+
+    @Override public String getTitle() { return file.getTitle(row); }
+    @Override public String getArtist() { return file.getArtist(row); }
+    @Override public String getGenres() { return file.getGenre(row); }
+
+    // comparisons
+
+    @Override
+    public int compareTo(Song other) {
+	if (other instanceof MappedSong && ((MappedSong) other).file == file) {
+	    return file.compareTitles(row, ((MappedSong) other).row);
+	}
+	return super.compareTo(other);
+    }
+}
@@ -0,0 +1,413 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class reads songs from a csv file that is mapped into memory, rather than copied
+ * onto the heap line by line. Reading a row decodes only its numeric columns, which are
+ * packed into the song as usual, and records where the row and its title start in the
+ * file. Titles, artists and genres stay in the mapped file until a song is asked for
+ * them, see MappedSong, so loading takes time and heap in proportion to the numeric
+ * columns rather than to the full width of each row.
+ * <p>
+ * The row offset index holds 16 bytes for each row read: the offset of the row in the
+ * file, and the offset and length of its title within the row. The file is mapped in
+ * segments of 1 GiB, so files larger than 2 GiB can be read too. Rows are read by one
+ * thread, while songs already read can be decoded from any number of threads, also
+ * while later rows are still being read: the index entries of a row are written before
+ * the row count that includes it, and readers check the row count first.
+ */
+public class MappedSongFile {
+
+    // bytes per mapped segment, a power of two so offsets split into segment and position
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_BYTES = 1L << SEGMENT_BITS;
+
+    // the numeric columns, in the order Song.pack takes them
+    private static final String[] NUMERIC_COLUMNS = { "year", "bpm", "nrgy", "dnce", "dB", "live" };
+
+    // role of a column that is not read while loading, or that holds the title; other
+    // roles are the position of the column within NUMERIC_COLUMNS
+    private static final int SKIPPED = -1;
+    private static final int TITLE = -2;
+
+    private final String filename;
+    private final MappedByteBuffer[] segments;
+    private final long length;
+
+    // the role of each column, up to the last column read while loading
+    private final int[] roles;
+    private final int artistColumn;
+    private final int genreColumn;
+
+    // the row offset index, see the class comment; volatile, as the arrays are replaced
+    // when they grow while other threads decode the rows already counted
+    private volatile long[] rowOffsets = new long[1024];
+    private volatile int[] titleOffsets = new int[1024];
+    private volatile int[] titleLengths = new int[1024];
+    private volatile int rowCount = 0;
+
+    // the offset of the next row to read, and the line number it starts on
+    private long position;
+    private long lineNumber;
+
+    // the numeric columns of the row being read
+    private final int[] values = new int[NUMERIC_COLUMNS.length];
+
+    /**
+     * Maps a csv file into memory and reads its header. The file itself is closed once
+     * mapped, and stays mapped until this object and its songs are no longer used.
+     *
+     * @param file the csv file to read
+     * @throws IOException when the file cannot be read, is empty, or is missing one of
+     *                     the required columns
+     */
+    public MappedSongFile(File file) throws IOException {
+        this.filename = file.getPath();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            this.length = channel.size();
+            int count = (int) ((length + SEGMENT_BYTES - 1) >>> SEGMENT_BITS);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                    Math.min(SEGMENT_BYTES, length - start));
+            }
+        }
+        if (length == 0) {
+            throw new IOException("CSV file is empty or improperly formatted.");
+        }
+
+        List<String> header = fields(0);
+        int titleColumn = header.indexOf("title");
+        this.artistColumn = header.indexOf("artist");
+        this.genreColumn = header.indexOf("top genre");
+        boolean missing = titleColumn == -1 || artistColumn == -1 || genreColumn == -1;
+        int[] numericColumns = new int[NUMERIC_COLUMNS.length];
+        int lastColumn = Math.max(titleColumn, Math.max(artistColumn, genreColumn));
+        for (int i = 0; i < NUMERIC_COLUMNS.length; i++) {
+            numericColumns[i] = header.indexOf(NUMERIC_COLUMNS[i]);
+            lastColumn = Math.max(lastColumn, numericColumns[i]);
+            missing |= numericColumns[i] == -1;
+        }
+        if (missing) {
+            throw new IOException("Missing one or more required fields in the file.");
+        }
+
+        this.roles = new int[lastColumn + 1];
+        Arrays.fill(roles, SKIPPED);
+        roles[titleColumn] = TITLE;
+        for (int i = 0; i < NUMERIC_COLUMNS.length; i++) {
+            roles[numericColumns[i]] = i;
+        }
+
+        this.position = lineEnd(0) + 1;
+        this.lineNumber = 2;
+    }
+
+    /**
+     * @return the name of the mapped file
+     */
+    public String getFilename() {
+        return filename;
+    }
+
+    /**
+     * @return the size of the mapped file in bytes
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return the offset in the file of the next row to read, or the file's length once
+     * every row has been read
+     */
+    public long position() {
+        return Math.min(position, length);
+    }
+
+    /**
+     * @return the number of rows read so far
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return the offset in the file of the row with this index
+     * @throws IndexOutOfBoundsException if that row has not been read
+     */
+    public long getRowOffset(int row) {
+        checkRow(row);
+        return rowOffsets[row];
+    }
+
+    /**
+     * @return the line number of the row read by the latest call to next, where the
+     * header is line 1
+     */
+    public long getLineNumber() {
+        return lineNumber - 1;
+    }
+
+    /**
+     * Reads the next row of the file, decoding only its numeric columns. A row that
+     * fails is still read, so the following call to next reads the row after it.
+     *
+     * @return the song in the row, or null when every row has been read
+     * @throws NumberFormatException when a numeric column is not a whole number
+     * @throws IllegalArgumentException when the row has too few columns, or a number is
+     *                                  out of range for its attribute
+     * @throws IllegalStateException when the file has more rows than an int can count
+     */
+    public MappedSong next() {
+        if (position >= length) {
+            return null;
+        }
+        if (rowCount == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many rows in " + filename);
+        }
+        long rowStart = position;
+        lineNumber++;
+        // the first numeric column that is not a whole number, and where it is
+        int badColumn = SKIPPED;
+        long badStart = 0;
+        long badEnd = 0;
+
+        int column = 0;
+        boolean quoted = false;
+        long fieldStart = rowStart;
+        long titleStart = rowStart;
+        long titleEnd = rowStart;
+        // the number being read, and whether it has a sign, digits and trailing spaces
+        int value = 0;
+        boolean negative = false;
+        boolean digits = false;
+        boolean ended = false;
+        boolean invalid = false;
+
+        long offset = rowStart;
+        while (true) {
+            int b = offset < length ? byteAt(offset) : '\n';
+            if (b == '\n' || (b == ',' && !quoted)) {
+                // the end of a field
+                int role = column < roles.length ? roles[column] : SKIPPED;
+                if (role == TITLE) {
+                    titleStart = fieldStart;
+                    titleEnd = offset;
+                } else if (role >= 0) {
+                    if ((invalid || !digits) && badColumn == SKIPPED) {
+                        badColumn = role;
+                        badStart = fieldStart;
+                        badEnd = offset;
+                    }
+                    values[role] = negative ? -value : value;
+                }
+                column++;
+                if (b == '\n') {
+                    break;
+                }
+                fieldStart = offset + 1;
+                value = 0;
+                negative = false;
+                digits = false;
+                ended = false;
+                invalid = false;
+            } else if (b == '"') {
+                quoted = !quoted;
+            } else if (column < roles.length && roles[column] >= 0) {
+                // a character of a numeric column
+                if (b >= '0' && b <= '9' && !ended) {
+                    // larger values are out of range for every attribute
+                    invalid |= value > 1_000_000;
+                    value = value * 10 + (b - '0');
+                    digits = true;
+                } else if ((b == '-' || b == '+') && !digits && !negative && !ended) {
+                    negative = b == '-';
+                } else if (b == ' ' || b == '\t' || b == '\r') {
+                    ended = digits;
+                } else {
+                    invalid = true;
+                }
+            }
+            offset++;
+        }
+        position = offset + 1;
+
+        if (column < roles.length) {
+            throw new IllegalArgumentException("Expected at least " + roles.length
+                + " columns, but found " + column);
+        }
+        if (badColumn != SKIPPED) {
+            throw new NumberFormatException(NUMERIC_COLUMNS[badColumn] + " is not a whole number: "
+                + text(badStart, badEnd));
+        }
+        long attributes = Song.pack(values[0], values[1], values[2], values[3],
+            values[4], values[5]);
+
+        // trim the title, as splitting a line into fields does
+        while (titleStart < titleEnd && byteAt(titleStart) <= ' ' && byteAt(titleStart) >= 0) {
+            titleStart++;
+        }
+        while (titleEnd > titleStart && byteAt(titleEnd - 1) <= ' ' && byteAt(titleEnd - 1) >= 0) {
+            titleEnd--;
+        }
+        int row = rowCount;
+        long[] rowOffsets = this.rowOffsets;
+        int[] titleOffsets = this.titleOffsets;
+        int[] titleLengths = this.titleLengths;
+        if (row == rowOffsets.length) {
+            int capacity = row + (row >> 1);
+            rowOffsets = Arrays.copyOf(rowOffsets, capacity);
+            titleOffsets = Arrays.copyOf(titleOffsets, capacity);
+            titleLengths = Arrays.copyOf(titleLengths, capacity);
+        }
+        rowOffsets[row] = rowStart;
+        titleOffsets[row] = (int) (titleStart - rowStart);
+        titleLengths[row] = (int) (titleEnd - titleStart);
+        this.rowOffsets = rowOffsets;
+        this.titleOffsets = titleOffsets;
+        this.titleLengths = titleLengths;
+        // publish the row only once its entries are written
+        rowCount = row + 1;
+        return new MappedSong(this, row, attributes);
+    }
+
+    // field accessors, each decoding only the field requested
+
+    public String getTitle(int row) {
+        checkRow(row);
+        long start = rowOffsets[row] + titleOffsets[row];
+        return text(start, start + titleLengths[row]);
+    }
+
+    public String getArtist(int row) {
+        checkRow(row);
+        return field(rowOffsets[row], artistColumn);
+    }
+
+    public String getGenre(int row) {
+        checkRow(row);
+        return field(rowOffsets[row], genreColumn);
+    }
+
+    /**
+     * Compares the titles of two rows as String.compareTo would. Titles of plain ASCII
+     * are compared byte by byte, in place in the file, so ordering songs by title does
+     * not decode them. Other titles are decoded and then compared.
+     */
+    public int compareTitles(int row, int otherRow) {
+        checkRow(row);
+        checkRow(otherRow);
+        long start = rowOffsets[row] + titleOffsets[row];
+        long otherStart = rowOffsets[otherRow] + titleOffsets[otherRow];
+        int length = titleLengths[row];
+        int otherLength = titleLengths[otherRow];
+        for (int i = 0; i < length && i < otherLength; i++) {
+            byte b = byteAt(start + i);
+            byte other = byteAt(otherStart + i);
+            if (b < 0 || other < 0 || b == '"' || other == '"') {
+                // bytes of a multi-byte character, or quotes that are not part of the title
+                return getTitle(row).compareTo(getTitle(otherRow));
+            }
+            if (b != other) {
+                return b - other;
+            }
+        }
+        for (int i = Math.min(length, otherLength); i < Math.max(length, otherLength); i++) {
+            byte b = i < length ? byteAt(start + i) : byteAt(otherStart + i);
+            if (b < 0 || b == '"') {
+                return getTitle(row).compareTo(getTitle(otherRow));
+            }
+        }
+        return length - otherLength;
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("No row " + row + " in " + filename);
+        }
+    }
+
+    private byte byteAt(long offset) {
+        return segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & (SEGMENT_BYTES - 1)));
+    }
+
+    /**
+     * @return the offset of the newline ending the line that starts at start, or the
+     * file's length if it has no newline
+     */
+    private long lineEnd(long start) {
+        long offset = start;
+        while (offset < length && byteAt(offset) != '\n') {
+            offset++;
+        }
+        return offset;
+    }
+
+    /**
+     * @return the fields of the line that starts at start
+     */
+    private List<String> fields(long start) {
+        List<String> fields = new ArrayList<>();
+        long end = lineEnd(start);
+        long fieldStart = start;
+        boolean quoted = false;
+        for (long offset = start; offset < end; offset++) {
+            byte b = byteAt(offset);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                fields.add(text(fieldStart, offset));
+                fieldStart = offset + 1;
+            }
+        }
+        fields.add(text(fieldStart, end));
+        return fields;
+    }
+
+    /**
+     * @return the field in this column of the row that starts at start
+     */
+    private String field(long start, int column) {
+        long end = lineEnd(start);
+        long fieldStart = start;
+        int current = 0;
+        boolean quoted = false;
+        for (long offset = start; offset < end; offset++) {
+            byte b = byteAt(offset);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (b == ',' && !quoted) {
+                if (current == column) {
+                    return text(fieldStart, offset);
+                }
+                current++;
+                fieldStart = offset + 1;
+            }
+        }
+        return text(fieldStart, end);
+    }
+
+    /**
+     * Decodes the bytes from start up to end as a field: without quotes, and trimmed.
+     */
+    private String text(long start, long end) {
+        byte[] bytes = new byte[(int) (end - start)];
+        int count = 0;
+        for (long offset = start; offset < end; offset++) {
+            byte b = byteAt(offset);
+            if (b != '"') {
+                bytes[count++] = b;
+            }
+        }
+        return new String(bytes, 0, count, StandardCharsets.UTF_8).trim();
+    }
+}
@@ -0,0 +1,199 @@
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * This class is a registry of named metrics: counters that only go up, histograms of
+ * latencies or other values, and gauges that read a current value when asked. Metrics
+ * are created on first use by name, and recording into them never locks or allocates,
+ * so they can stay enabled on hot paths. The registry can be read as a text dump, or
+ * through JMX after registering it with register.
+ */
+public class Metrics implements MetricsMXBean {
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * @return the counter with this name, created at zero if it does not exist yet
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, ignored -> new Counter());
+    }
+
+    /**
+     * @return the histogram with this name, created empty if it does not exist yet
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, ignored -> new Histogram());
+    }
+
+    /**
+     * Adds a gauge, replacing any gauge with the same name.
+     * @param name the name of the gauge
+     * @param value reads the current value whenever the gauge is read
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Returns the current value of every metric, by name. A histogram contributes its
+     * count, mean, 50th, 99th and 99.9th percentiles and maximum, as name.count,
+     * name.mean and so on.
+     */
+    @Override
+    public Map<String, Long> getValues() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.get()));
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        histograms.forEach((name, histogram) -> {
+            values.put(name + ".count", histogram.count());
+            values.put(name + ".mean", histogram.mean());
+            values.put(name + ".p50", histogram.percentile(50));
+            values.put(name + ".p99", histogram.percentile(99));
+            values.put(name + ".p999", histogram.percentile(99.9));
+            values.put(name + ".max", histogram.max());
+        });
+        return values;
+    }
+
+    /**
+     * @return every metric as one "name value" line, ordered by name
+     */
+    @Override
+    public String dump() {
+        StringBuilder dump = new StringBuilder();
+        getValues().forEach((name, value) ->
+            dump.append(name).append(' ').append(value).append('\n'));
+        return dump.toString();
+    }
+
+    /**
+     * Registers this registry with the platform MBean server, so the values and dump
+     * can be read with tools like jconsole.
+     * @param name the JMX object name, such as "iSongly:type=Metrics"
+     * @throws IllegalStateException when the name is invalid or already registered
+     */
+    public void register(String name) {
+        try {
+            java.lang.management.ManagementFactory.getPlatformMBeanServer()
+                .registerMBean(this, new javax.management.ObjectName(name));
+        } catch (javax.management.JMException e) {
+            throw new IllegalStateException("Could not register metrics as " + name, e);
+        }
+    }
+
+    /**
+     * A count that only goes up, such as the number of rows read. Increments from
+     * different threads do not contend on a single value.
+     */
+    public static class Counter {
+
+        private final LongAdder count = new LongAdder();
+
+        public void increment() { count.increment(); }
+        public void add(long amount) { count.add(amount); }
+        public long get() { return count.sum(); }
+    }
+
+    /**
+     * A histogram of non-negative values, such as latencies in nanoseconds. Like an
+     * HdrHistogram, values are counted in buckets whose width grows with the value:
+     * each power of two is split into 16 buckets, so a percentile read from the buckets
+     * is within 1/16 of the recorded value, from nanoseconds up to centuries, in a fixed
+     * 960 counts.
+     */
+    public static class Histogram {
+
+        // number of buckets each power of two is split into, as a power of two
+        private static final int SUB_BUCKET_BITS = 4;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        /**
+         * Records one value, treating negative values as 0.
+         */
+        public void record(long value) {
+            value = Math.max(0, value);
+            buckets.incrementAndGet(bucketOf(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        /**
+         * Records the time elapsed since start, which was read from System.nanoTime.
+         */
+        public void recordSince(long start) {
+            record(System.nanoTime() - start);
+        }
+
+        public long count() { return count.sum(); }
+        public long max() { return max.get(); }
+
+        /**
+         * @return the mean of the recorded values, or 0 when none were recorded
+         */
+        public long mean() {
+            long recorded = count.sum();
+            return recorded == 0 ? 0 : sum.sum() / recorded;
+        }
+
+        /**
+         * Returns the value below which the given percentage of the recorded values fall.
+         * @param percentile a percentage from 0 to 100
+         * @return the largest value of the bucket holding that percentile, or 0 when no
+         * values were recorded
+         */
+        public long percentile(double percentile) {
+            long recorded = count.sum();
+            if (recorded == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(recorded * percentile / 100.0));
+            long seen = 0;
+            for (int bucket = 0; bucket < buckets.length(); bucket++) {
+                seen += buckets.get(bucket);
+                if (seen >= rank) {
+                    return Math.min(max.get(), highestValueOf(bucket));
+                }
+            }
+            return max.get();
+        }
+
+        /**
+         * @return the bucket counting value: values below 16 each have their own bucket,
+         * and larger values share a bucket with the values that have the same highest 5 bits
+         */
+        static int bucketOf(long value) {
+            int magnitude = 63 - Long.numberOfLeadingZeros(value);
+            if (magnitude < SUB_BUCKET_BITS) {
+                return (int) value;
+            }
+            int shift = magnitude - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+        }
+
+        /**
+         * @return the largest value counted by bucket
+         */
+        static long highestValueOf(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKETS - 1;
+            long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+            return lowest + (1L << shift) - 1;
+        }
+    }
+}
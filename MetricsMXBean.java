@@ -0,0 +1,17 @@
+import java.util.Map;
+
+/**
+ * The view of Metrics published through JMX, see Metrics.register.
+ */
+public interface MetricsMXBean {
+
+    /**
+     * @return the current value of every metric, by name
+     */
+    public Map<String, Long> getValues();
+
+    /**
+     * @return every metric as one "name value" line, ordered by name
+     */
+    public String dump();
+}
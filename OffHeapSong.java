@@ -0,0 +1,44 @@
+/**
+ * This class is a Song whose strings are kept in an OffHeapSongStore. It holds the
+ * song's packed numeric attributes like any song, so comparing songs by energy or year
+ * never reads the store, but only the store and the song's int id for its title, artist
+ * and genre, which are decoded from the store each time they are asked for. Songs of the
+ * same store are compared by title without decoding either title, see
+ * OffHeapSongStore.compareTitles.
+ */
+public class OffHeapSong extends Song {
+
+    private final OffHeapSongStore store;
+    private final int id;
+
+    /**
+     * Creates a song backed by the record with this id in store. Use OffHeapSongStore.get
+     * to create these.
+     */
+    OffHeapSong(OffHeapSongStore store, int id, long attributes) {
+	super(null, null, null, attributes);
+	this.store = store;
+	this.id = id;
+    }
+
+    /**
+     * @return the id of this song within its store
+     */
+    public int getId() { return id; }
+
+    // accessors
+
+    @Override public String getTitle() { return store.getTitle(id); }
+    @Override public String getArtist() { return store.getArtist(id); }
+    @Override public String getGenres() { return store.getGenre(id); }
+
+    // comparisons
+
+    @Override
+    public int compareTo(Song other) {
+	if (other instanceof OffHeapSong && ((OffHeapSong) other).store == store) {
+	    return store.compareTitles(id, ((OffHeapSong) other).id);
+	}
+	return super.compareTo(other);
+    }
+}
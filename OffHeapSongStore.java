@@ -0,0 +1,310 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * This class stores songs outside of the Java heap, in direct ByteBuffers, so that large
+ * catalogs do not add to the work the garbage collector does. Each song is a fixed-width
+ * record, identified by an int id, that holds its packed numeric attributes and the
+ * offsets of its title, artist and genre within a separate blob of string data.
+ * <p>
+ * Records and blobs are allocated in chunks, so the store grows without copying. Artist
+ * and genre values are written to the blob once, and every record with that value shares
+ * its offset. Songs are read back one field at a time, see OffHeapSong, and their titles
+ * are compared on the stored bytes, without decoding them into Strings.
+ * <p>
+ * Songs are added by one thread at a time, while any number of threads read the songs
+ * added so far without locking, so queries can run while a load adds songs. Songs are
+ * never removed, so a song read from the store stays readable for as long as it is
+ * held; the buffers are released once neither the store nor any of its songs is
+ * reachable.
+ */
+public class OffHeapSongStore {
+
+    // record layout: packed attributes, then the blob offsets of title, artist and genre
+    private static final int ATTRIBUTES = 0;
+    private static final int TITLE = 8;
+    private static final int ARTIST = 16;
+    private static final int GENRE = 24;
+    private static final int RECORD_BYTES = 32;
+
+    // records per chunk of records, a power of two so ids split into chunk and slot
+    private static final int RECORD_CHUNK_BITS = 15;
+    private static final int RECORDS_PER_CHUNK = 1 << RECORD_CHUNK_BITS;
+
+    // bytes per chunk of string data, a power of two so offsets split into chunk and position
+    private static final int BLOB_CHUNK_BITS = 20;
+    private static final int BLOB_CHUNK_BYTES = 1 << BLOB_CHUNK_BITS;
+
+    // blob offset stored for null strings
+    private static final long NULL_OFFSET = -1;
+
+    // the chunks of records and of string data. Adding a chunk replaces the array with a
+    // longer copy, so a reader never sees an array while it is being changed
+    private volatile ByteBuffer[] records = new ByteBuffer[0];
+    private volatile ByteBuffer[] blobs = new ByteBuffer[0];
+
+    // the position of the next string within the last chunk of string data
+    private int blobPosition = 0;
+
+    // number of songs stored, written after each song's record and strings, so a reader
+    // that sees an id below size also sees everything written for that song
+    private volatile int size = 0;
+
+    // blob offsets of the artist and genre values written so far, used only while adding
+    private final HashMap<String, Long> sharedOffsets = new HashMap<>();
+
+    /**
+     * Copies a song into this store.
+     * @param song the song to store
+     * @return the id of the stored song
+     * @throws NullPointerException if song is null
+     */
+    public int add(Song song) {
+        return add(song.getTitle(), song.getArtist(), song.getGenres(),
+            song.getPackedAttributes());
+    }
+
+    /**
+     * Stores a song from its strings and packed numeric attributes, see Song.pack.
+     * @return the id of the stored song
+     * @throws IllegalArgumentException if one string is longer than a blob chunk
+     * @throws IllegalStateException if the store already holds Integer.MAX_VALUE songs
+     */
+    public synchronized int add(String title, String artist, String genre, long attributes) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap song store is full");
+        }
+        int id = size;
+        if ((id & (RECORDS_PER_CHUNK - 1)) == 0) {
+            records = append(records, ByteBuffer.allocateDirect(RECORDS_PER_CHUNK * RECORD_BYTES));
+        }
+        ByteBuffer chunk = records[id >>> RECORD_CHUNK_BITS];
+        int position = position(id);
+        chunk.putLong(position + ATTRIBUTES, attributes);
+        chunk.putLong(position + TITLE, writeString(title));
+        chunk.putLong(position + ARTIST, writeSharedString(artist));
+        chunk.putLong(position + GENRE, writeSharedString(genre));
+        // publishes the song to readers
+        size = id + 1;
+        return id;
+    }
+
+    /**
+     * @return a copy of chunks with chunk added at the end
+     */
+    private static ByteBuffer[] append(ByteBuffer[] chunks, ByteBuffer chunk) {
+        ByteBuffer[] longer = Arrays.copyOf(chunks, chunks.length + 1);
+        longer[chunks.length] = chunk;
+        return longer;
+    }
+
+    /**
+     * @return the number of songs in this store
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a song that reads its fields from this store on demand.
+     * @param id the id returned when the song was added
+     * @return the song with that id
+     * @throws IndexOutOfBoundsException if no song has that id
+     */
+    public OffHeapSong get(int id) {
+        return new OffHeapSong(this, id, getAttributes(id));
+    }
+
+    // field accessors, each decoding only the field requested
+
+    public long getAttributes(int id) {
+        return record(id).getLong(position(id) + ATTRIBUTES);
+    }
+
+    public String getTitle(int id) {
+        return readString(record(id).getLong(position(id) + TITLE));
+    }
+
+    public String getArtist(int id) {
+        return readString(record(id).getLong(position(id) + ARTIST));
+    }
+
+    public String getGenre(int id) {
+        return readString(record(id).getLong(position(id) + GENRE));
+    }
+
+    /**
+     * Compares the titles of two songs in the order of String.compareTo, reading the
+     * stored UTF-8 bytes of each title in place rather than decoding them into Strings.
+     * @return a negative number, zero, or a positive number as the title of the song with
+     * id is less than, equal to, or greater than the title of the song with otherId
+     * @throws IndexOutOfBoundsException if no song has one of the ids
+     * @throws NullPointerException if one of the songs has no title
+     */
+    public int compareTitles(int id, int otherId) {
+        long offset = record(id).getLong(position(id) + TITLE);
+        long otherOffset = record(otherId).getLong(position(otherId) + TITLE);
+        if (offset == NULL_OFFSET || otherOffset == NULL_OFFSET) {
+            throw new NullPointerException("Song has no title");
+        }
+        ByteBuffer[] blobs = this.blobs;
+        ByteBuffer chunk = blobs[(int) (offset >>> BLOB_CHUNK_BITS)];
+        ByteBuffer otherChunk = blobs[(int) (otherOffset >>> BLOB_CHUNK_BITS)];
+        int position = (int) (offset & (BLOB_CHUNK_BYTES - 1));
+        int otherPosition = (int) (otherOffset & (BLOB_CHUNK_BYTES - 1));
+        int end = position + Integer.BYTES + chunk.getInt(position);
+        int otherEnd = otherPosition + Integer.BYTES + otherChunk.getInt(otherPosition);
+        position += Integer.BYTES;
+        otherPosition += Integer.BYTES;
+
+        while (position < end && otherPosition < otherEnd) {
+            byte b = chunk.get(position);
+            byte other = otherChunk.get(otherPosition);
+            if (b >= 0 && other >= 0) {
+                // both ASCII, which compare the same as their chars
+                if (b != other) {
+                    return b - other;
+                }
+                position++;
+                otherPosition++;
+                continue;
+            }
+            int codePoint = codePointAt(chunk, position);
+            int otherCodePoint = codePointAt(otherChunk, otherPosition);
+            if (codePoint != otherCodePoint) {
+                return compareUtf16(codePoint, otherCodePoint);
+            }
+            position += utf8Length(b);
+            otherPosition += utf8Length(other);
+        }
+        // the title that ends first, being a prefix of the other, comes first
+        return Boolean.compare(position < end, otherPosition < otherEnd);
+    }
+
+    /**
+     * @return the number of bytes in the UTF-8 encoding of a character starting with
+     * this byte
+     */
+    private static int utf8Length(byte first) {
+        if (first >= 0) {
+            return 1;
+        }
+        return (first & 0xE0) == 0xC0 ? 2 : (first & 0xF0) == 0xE0 ? 3 : 4;
+    }
+
+    /**
+     * Decodes the character whose UTF-8 encoding starts at position in chunk.
+     */
+    private static int codePointAt(ByteBuffer chunk, int position) {
+        int first = chunk.get(position);
+        int length = utf8Length((byte) first);
+        if (length == 1) {
+            return first;
+        }
+        // the bits of the first byte that belong to the character, then 6 from each other
+        int codePoint = first & (0x7F >> length);
+        for (int i = 1; i < length; i++) {
+            codePoint = (codePoint << 6) | (chunk.get(position + i) & 0x3F);
+        }
+        return codePoint;
+    }
+
+    /**
+     * Compares two different characters in the order String.compareTo puts them, which
+     * compares UTF-16 chars, so characters outside the Basic Multilingual Plane compare
+     * by their surrogates rather than by their code points.
+     */
+    private static int compareUtf16(int codePoint, int otherCodePoint) {
+        int first = Character.isBmpCodePoint(codePoint)
+            ? codePoint : Character.highSurrogate(codePoint);
+        int otherFirst = Character.isBmpCodePoint(otherCodePoint)
+            ? otherCodePoint : Character.highSurrogate(otherCodePoint);
+        if (first != otherFirst) {
+            return first - otherFirst;
+        }
+        // two characters that share a high surrogate
+        return Character.lowSurrogate(codePoint) - Character.lowSurrogate(otherCodePoint);
+    }
+
+    /**
+     * @return the chunk of records holding the song with this id
+     */
+    private ByteBuffer record(int id) {
+        checkId(id);
+        return records[id >>> RECORD_CHUNK_BITS];
+    }
+
+    /**
+     * @return the position of the song's record within its chunk
+     */
+    private static int position(int id) {
+        return (id & (RECORDS_PER_CHUNK - 1)) * RECORD_BYTES;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No song with id " + id);
+        }
+    }
+
+    /**
+     * Writes an artist or genre value to the blob, unless it was written before.
+     * @return the blob offset of the value
+     */
+    private long writeSharedString(String value) {
+        if (value == null) {
+            return NULL_OFFSET;
+        }
+        Long offset = sharedOffsets.get(value);
+        if (offset == null) {
+            offset = writeString(value);
+            sharedOffsets.put(value, offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Appends a string to the blob as its UTF-8 length followed by its UTF-8 bytes.
+     * A string never spans two chunks.
+     * @return the blob offset of the string
+     */
+    private long writeString(String value) {
+        if (value == null) {
+            return NULL_OFFSET;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = Integer.BYTES + bytes.length;
+        if (needed > BLOB_CHUNK_BYTES) {
+            throw new IllegalArgumentException("String of " + bytes.length
+                + " bytes is too long to store");
+        }
+        if (blobs.length == 0 || BLOB_CHUNK_BYTES - blobPosition < needed) {
+            blobs = append(blobs, ByteBuffer.allocateDirect(BLOB_CHUNK_BYTES));
+            blobPosition = 0;
+        }
+        // written at absolute positions, so readers share no buffer position with this
+        ByteBuffer chunk = blobs[blobs.length - 1];
+        long offset = ((long) (blobs.length - 1) << BLOB_CHUNK_BITS) | blobPosition;
+        chunk.putInt(blobPosition, bytes.length);
+        chunk.put(blobPosition + Integer.BYTES, bytes);
+        blobPosition += needed;
+        return offset;
+    }
+
+    /**
+     * Decodes the string written at a blob offset.
+     */
+    private String readString(long offset) {
+        if (offset == NULL_OFFSET) {
+            return null;
+        }
+        ByteBuffer chunk = blobs[(int) (offset >>> BLOB_CHUNK_BITS)];
+        int position = (int) (offset & (BLOB_CHUNK_BYTES - 1));
+        int length = chunk.getInt(position);
+        byte[] bytes = new byte[length];
+        chunk.get(position + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,8 +1,28 @@
-import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.Assertions;
+import java.util.Comparator;
 
 public class RedBlackTree <T extends Comparable<T>> extends BSTRotation<T> {
 
+    // work done by insert since the tree was created. These are plain fields so counting
+    // costs nothing measurable, and other threads reading them may see slightly old values
+    protected long insertCount = 0;
+    protected long rotationCount = 0;
+    protected long recolorCount = 0;
+
+    /**
+     * Creates an empty red black tree that orders its values by their natural ordering.
+     */
+    public RedBlackTree() {
+        super();
+    }
+
+    /**
+     * Creates an empty red black tree that orders its values using the provided comparator.
+     * @param comparator the ordering used to place values in the tree
+     */
+    public RedBlackTree(Comparator<? super T> comparator) {
+        super(comparator);
+    }
+
     /**
     Inserting a node into a Red Black Tree
      */
@@ -14,6 +34,7 @@ public class RedBlackTree <T extends Comparable<T>> extends BSTRotation<T> {
 
         RBTNode<T> newNode = new RBTNode<>(value);
         newNode.isRed = true;
+        insertCount++;
 
 
         //If the tree is empty set the newNode as the root
@@ -31,9 +52,150 @@ public class RedBlackTree <T extends Comparable<T>> extends BSTRotation<T> {
         }
 
         //The root is black after all insertions
-        if (this.root != null) {
+        if (this.root != null && ((RBTNode<T>) this.root).isRed) {
             ((RBTNode<T>) this.root).isRed = false;
+            recolorCount++;
+        }
+    }
+
+    /**
+     * Performs a rotation as BSTRotation.rotate does, and counts it.
+     */
+    @Override
+    protected void rotate(BSTNode<T> child, BSTNode<T> parent)
+            throws NullPointerException, IllegalArgumentException {
+        super.rotate(child, parent);
+        rotationCount++;
+    }
+
+    /**
+     * @return the number of values inserted since the tree was created
+     */
+    public long getInsertCount() {
+        return insertCount;
+    }
+
+    /**
+     * @return the number of rotations performed by inserts since the tree was created
+     */
+    public long getRotationCount() {
+        return rotationCount;
+    }
+
+    /**
+     * @return the number of times inserts have changed the color of a node, other than
+     * coloring the new node red, since the tree was created
+     */
+    public long getRecolorCount() {
+        return recolorCount;
+    }
+
+    /**
+     * @return the number of nodes on the longest path from the root down to a leaf, or 0
+     * when the tree is empty
+     */
+    public int height() {
+        return heightHelper(root);
+    }
 
+    private int heightHelper(BSTNode<T> node) {
+        if (node == null) {
+            return 0;
+        }
+        return 1 + Math.max(heightHelper(node.getLeft()), heightHelper(node.getRight()));
+    }
+
+    /**
+     * Walks the whole tree to measure its shape, and returns that with the counts of
+     * the work done by insert. Unlike toLevelOrderString, this builds no strings.
+     * @return the height, black height, node and red node counts, and insert,
+     * rotation and recolor counts of the tree
+     */
+    public TreeDiagnostics diagnostics() {
+        Inspection inspection = new Inspection();
+        int blackHeight = inspection.inspect((RBTNode<T>) root, 1);
+        if (inspection.violation != null) {
+            blackHeight = -1;
+        }
+        return new TreeDiagnostics(inspection.nodes, inspection.redNodes, inspection.height,
+            blackHeight, insertCount, rotationCount, recolorCount);
+    }
+
+    /**
+     * Checks that the tree is a valid red black tree: the root is black, no red node has
+     * a red child, every path from the root down to a missing child has the same number
+     * of black nodes, each child links back to its parent, and an in order walk visits
+     * the values in order.
+     * @throws IllegalStateException describing the first broken property found
+     */
+    public void validate() throws IllegalStateException {
+        if (root != null && ((RBTNode<T>) root).isRed) {
+            throw new IllegalStateException("The root " + root + " is red");
+        }
+        if (root != null && root.getUp() != null) {
+            throw new IllegalStateException("The root " + root + " has a parent");
+        }
+        Inspection inspection = new Inspection();
+        inspection.inspect((RBTNode<T>) root, 1);
+        if (inspection.violation != null) {
+            throw new IllegalStateException(inspection.violation);
+        }
+    }
+
+    /**
+     * One walk over the tree, in order, that counts its nodes and notes the first
+     * red black or ordering property found broken.
+     */
+    private class Inspection {
+        int nodes = 0;
+        int redNodes = 0;
+        int height = 0;
+        String violation = null;
+        // the node visited before the current one in order, or null at the start
+        RBTNode<T> previous = null;
+
+        /**
+         * Inspects the subtree below node, found at the given depth.
+         * @return the number of black nodes on each path from node down to a missing
+         * child, counting that missing child, or -1 if paths have different numbers
+         */
+        int inspect(RBTNode<T> node, int depth) {
+            if (node == null) {
+                return 1;
+            }
+            nodes++;
+            height = Math.max(height, depth);
+            if (node.isRed) {
+                redNodes++;
+            }
+
+            RBTNode<T> left = node.getLeft();
+            RBTNode<T> right = node.getRight();
+            if (node.isRed && ((left != null && left.isRed) || (right != null && right.isRed))) {
+                note("The red node " + node + " has a red child");
+            }
+            if ((left != null && left.getUp() != node) || (right != null && right.getUp() != node)) {
+                note("A child of " + node + " does not link back to it");
+            }
+
+            int leftHeight = inspect(left, depth + 1);
+            if (previous != null && comparator.compare(previous.getData(), node.getData()) > 0) {
+                note(previous + " comes before " + node + " but is larger");
+            }
+            previous = node;
+            int rightHeight = inspect(right, depth + 1);
+
+            if (leftHeight != rightHeight || leftHeight == -1) {
+                note("The paths below " + node + " have different numbers of black nodes");
+                return -1;
+            }
+            return leftHeight + (node.isRed ? 0 : 1);
+        }
+
+        private void note(String problem) {
+            if (violation == null) {
+                violation = problem;
+            }
         }
     }
 
@@ -51,6 +213,7 @@ public class RedBlackTree <T extends Comparable<T>> extends BSTRotation<T> {
         RBTNode<T> root = (RBTNode<T>)(this.root);
         if(newRedNode.equals(root)) {
             newRedNode.isRed = false;
+            recolorCount++;
             return;
         }
 
@@ -76,6 +239,7 @@ public class RedBlackTree <T extends Comparable<T>> extends BSTRotation<T> {
             aunt.isRed = false;
             parent.isRed = false;
             grandparent.isRed = true;
+            recolorCount += 3;
 
             ensureRedProperty(grandparent);
 
@@ -95,6 +259,7 @@ public class RedBlackTree <T extends Comparable<T>> extends BSTRotation<T> {
 
             grandparent.isRed = true;
             parent.isRed = false;
+            recolorCount += 2;
         }
         else {
             // Black Zig Case - double rotation involving parent, child, and grandparent
@@ -107,117 +272,9 @@ public class RedBlackTree <T extends Comparable<T>> extends BSTRotation<T> {
             // fix the colors after rotation
             newRedNode.isRed = false;
             grandparent.isRed = true;
+            recolorCount += 2;
         }
 
     }
 
-    /**
-     * Checks basic functionality of methods to see if the root
-     * would be black and the children should be red
-     */
-    @Test
-    public void RedBlackTreeTest1(){
-        RedBlackTree<Integer> RBTTester  = new RedBlackTree<>();
-        //Insert root value in the tree which has to be colored black
-        RBTTester.insert(10);
-        RBTNode<Integer> rootRBT = (RBTNode<Integer>) (RBTTester.root);
-
-        Assertions.assertEquals("10(b)", rootRBT.toString());
-
-        //Insert child values in the tree which have to be colored red
-        RBTTester.insert(5);
-        RBTTester.insert(15);
-
-        //Tree should be
-        //                   10(b)
-        //               5(r)    15(r)
-
-        RBTNode<Integer> rightChild = rootRBT.getRight();
-        RBTNode<Integer> leftChild = rootRBT.getLeft();
-
-        Assertions.assertEquals("5(r)", leftChild.toString());
-        Assertions.assertEquals("15(r)", rightChild.toString());
-
-    }
-
-
-    /**
-     * Test containing a Q03.RBTInsert quiz example, question 2
-     */
-    @Test
-    public void RedBlackTreeTest2(){
-        RedBlackTree<String> RBTTester  = new RedBlackTree<>();
-
-        //Insert values in the tree
-        RBTTester.insert("L");
-        RBTTester.insert("F");
-        RBTTester.insert("T");
-        RBTTester.insert("B");
-        RBTTester.insert("J");
-        RBTTester.insert("N");
-        RBTTester.insert("S");
-
-        //Assign names to each node
-
-        RBTNode<String> rootRBT = (RBTNode<String>) (RBTTester.root);
-        RBTNode<String> rightParent = rootRBT.getRight();
-        RBTNode<String> leftParent = rootRBT.getLeft();
-        RBTNode<String> leftParentLeftChild = leftParent.getLeft();
-        RBTNode<String> leftParentRightChild = leftParent.getRight();
-        RBTNode<String> rightParentLeftChild = rightParent.getLeft();
-        RBTNode<String> rightParentRightChild = rightParent.getRight();
-
-        //The order should be
-        //                    L(b)
-        //               F(b)         S(b)
-        //            B(r)  J(r)   N(r)  T(r)
-
-        Assertions.assertEquals("L(b)", rootRBT.toString());
-        Assertions.assertEquals("F(b)", leftParent.toString());
-        Assertions.assertEquals("S(b)", rightParent.toString());
-        Assertions.assertEquals("B(r)", leftParentLeftChild.toString());
-        Assertions.assertEquals("J(r)", leftParentRightChild.toString());
-        Assertions.assertEquals("N(r)", rightParentLeftChild.toString());
-        Assertions.assertEquals("T(r)", rightParentRightChild.toString());
-
-
-    }
-
-
-    /**
-     * Test to see what happens when there is a Red Aunt Violation
-     */
-    @Test
-    public void RedBlackTreeTest3(){
-
-        RedBlackTree<Integer> RBTTester  = new RedBlackTree<>();
-
-        //Insert values in the tree
-        RBTTester.insert(10);
-        RBTTester.insert(8);
-        RBTTester.insert(12);
-        RBTTester.insert(1);
-
-        //Assign names to each node
-
-        RBTNode<Integer> grandparent = (RBTNode<Integer>) (RBTTester.root);
-        RBTNode<Integer> aunt = grandparent.getRight();
-        RBTNode<Integer> parent = grandparent.getLeft();
-        RBTNode<Integer> child = parent.getLeft();
-
-        //Tree should be
-        //                 10(b)
-        //             8(b)    12(b)
-        //          1(r)
-
-
-        Assertions.assertEquals("10(b)", grandparent.toString());
-        Assertions.assertEquals("8(b)", grandparent.getLeft().toString());
-        Assertions.assertEquals("12(b)", grandparent.getRight().toString());
-        Assertions.assertEquals("1(r)", parent.getLeft().toString());
-
-    }
-
 }
-
-
@@ -0,0 +1,159 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Assertions;
+
+/**
+ * Tests for RedBlackTree.
+ */
+public class RedBlackTreeTests {
+
+    /**
+     * Checks basic functionality of methods to see if the root
+     * would be black and the children should be red
+     */
+    @Test
+    public void RedBlackTreeTest1(){
+        RedBlackTree<Integer> RBTTester  = new RedBlackTree<>();
+        //Insert root value in the tree which has to be colored black
+        RBTTester.insert(10);
+        RBTNode<Integer> rootRBT = (RBTNode<Integer>) (RBTTester.root);
+
+        Assertions.assertEquals("10(b)", rootRBT.toString());
+
+        //Insert child values in the tree which have to be colored red
+        RBTTester.insert(5);
+        RBTTester.insert(15);
+
+        //Tree should be
+        //                   10(b)
+        //               5(r)    15(r)
+
+        RBTNode<Integer> rightChild = rootRBT.getRight();
+        RBTNode<Integer> leftChild = rootRBT.getLeft();
+
+        Assertions.assertEquals("5(r)", leftChild.toString());
+        Assertions.assertEquals("15(r)", rightChild.toString());
+
+    }
+
+
+    /**
+     * Test containing a Q03.RBTInsert quiz example, question 2
+     */
+    @Test
+    public void RedBlackTreeTest2(){
+        RedBlackTree<String> RBTTester  = new RedBlackTree<>();
+
+        //Insert values in the tree
+        RBTTester.insert("L");
+        RBTTester.insert("F");
+        RBTTester.insert("T");
+        RBTTester.insert("B");
+        RBTTester.insert("J");
+        RBTTester.insert("N");
+        RBTTester.insert("S");
+
+        //Assign names to each node
+
+        RBTNode<String> rootRBT = (RBTNode<String>) (RBTTester.root);
+        RBTNode<String> rightParent = rootRBT.getRight();
+        RBTNode<String> leftParent = rootRBT.getLeft();
+        RBTNode<String> leftParentLeftChild = leftParent.getLeft();
+        RBTNode<String> leftParentRightChild = leftParent.getRight();
+        RBTNode<String> rightParentLeftChild = rightParent.getLeft();
+        RBTNode<String> rightParentRightChild = rightParent.getRight();
+
+        //The order should be
+        //                    L(b)
+        //               F(b)         S(b)
+        //            B(r)  J(r)   N(r)  T(r)
+
+        Assertions.assertEquals("L(b)", rootRBT.toString());
+        Assertions.assertEquals("F(b)", leftParent.toString());
+        Assertions.assertEquals("S(b)", rightParent.toString());
+        Assertions.assertEquals("B(r)", leftParentLeftChild.toString());
+        Assertions.assertEquals("J(r)", leftParentRightChild.toString());
+        Assertions.assertEquals("N(r)", rightParentLeftChild.toString());
+        Assertions.assertEquals("T(r)", rightParentRightChild.toString());
+
+
+    }
+
+
+    /**
+     * Test to see what happens when there is a Red Aunt Violation
+     */
+    @Test
+    public void RedBlackTreeTest3(){
+
+        RedBlackTree<Integer> RBTTester  = new RedBlackTree<>();
+
+        //Insert values in the tree
+        RBTTester.insert(10);
+        RBTTester.insert(8);
+        RBTTester.insert(12);
+        RBTTester.insert(1);
+
+        //Assign names to each node
+
+        RBTNode<Integer> grandparent = (RBTNode<Integer>) (RBTTester.root);
+        RBTNode<Integer> aunt = grandparent.getRight();
+        RBTNode<Integer> parent = grandparent.getLeft();
+        RBTNode<Integer> child = parent.getLeft();
+
+        //Tree should be
+        //                 10(b)
+        //             8(b)    12(b)
+        //          1(r)
+
+
+        Assertions.assertEquals("10(b)", grandparent.toString());
+        Assertions.assertEquals("8(b)", grandparent.getLeft().toString());
+        Assertions.assertEquals("12(b)", grandparent.getRight().toString());
+        Assertions.assertEquals("1(r)", parent.getLeft().toString());
+
+    }
+
+    /**
+     * Test that diagnostics match the shape of a tree built from ascending values, and
+     * that validate detects a red node with a red child and a broken black height
+     */
+    @Test
+    public void RedBlackTreeTest4(){
+        RedBlackTree<Integer> RBTTester = new RedBlackTree<>();
+        for (int i = 1; i <= 1000; i++) {
+            RBTTester.insert(i);
+        }
+        RBTTester.validate();
+
+        TreeDiagnostics diagnostics = RBTTester.diagnostics();
+        Assertions.assertEquals(1000, diagnostics.getNodeCount());
+        Assertions.assertEquals(RBTTester.height(), diagnostics.getHeight());
+        Assertions.assertTrue(diagnostics.getHeight() <= diagnostics.getMaximumHeight());
+        Assertions.assertTrue(diagnostics.getBlackHeight() > 0);
+        Assertions.assertEquals(1000, diagnostics.getInsertCount());
+        // ascending inserts rotate at almost every insert
+        Assertions.assertTrue(diagnostics.getRotationCount() > 900);
+        Assertions.assertTrue(diagnostics.getRecolorCount() > 0);
+        Assertions.assertEquals(diagnostics.getNodeCount(),
+            diagnostics.getRedCount() + diagnostics.getBlackCount());
+
+        //Tree is now 10(b), 5(r), 15(r), and coloring 5 black breaks the black height
+        RedBlackTree<Integer> broken = new RedBlackTree<>();
+        broken.insert(10);
+        broken.insert(5);
+        broken.insert(15);
+        ((RBTNode<Integer>) broken.root).getLeft().isRed = false;
+        Assertions.assertEquals(-1, broken.diagnostics().getBlackHeight());
+        Assertions.assertThrows(IllegalStateException.class, () -> broken.validate());
+
+        //Adding a red child below the red 15 breaks the red property
+        ((RBTNode<Integer>) broken.root).getLeft().isRed = true;
+        RBTNode<Integer> child = new RBTNode<>(20);
+        ((RBTNode<Integer>) broken.root).getRight().setRight(child);
+        child.setUp(broken.root.getRight());
+        IllegalStateException thrown = Assertions.assertThrows(IllegalStateException.class,
+            () -> broken.validate());
+        Assertions.assertTrue(thrown.getMessage().contains("red child"), thrown.getMessage());
+    }
+
+}
@@ -1,49 +1,39 @@
-import java.util.Comparator;
-
 /**
  * This class represents the data contained within a single song.
- * A comparator can be provided to each Song as the basis for it's compareTo,
- * otherwise songs will be ordered by their title.
+ * Songs are naturally ordered by their title. Other orderings are supplied to
+ * the tree that stores the songs, see SongComparators.
+ * <p>
+ * Songs are immutable. The six numeric attributes are packed into a single long,
+ * using 16 bits each for year (signed) and bpm, and 8 bits each for energy,
+ * danceability, loudness (signed) and liveness, so each song holds one long
+ * instead of six ints.
  */
 public class Song implements Comparable<Song> {
 
+    // bit offsets of each attribute within the packed attributes
+    private static final int YEAR_SHIFT = 0;
+    private static final int BPM_SHIFT = 16;
+    private static final int ENERGY_SHIFT = 32;
+    private static final int DANCEABILITY_SHIFT = 40;
+    private static final int LOUDNESS_SHIFT = 48;
+    private static final int LIVENESS_SHIFT = 56;
+
     // fields
-    
-    private String title;
-    private String artist;
-    private String genres;
-    private int year;
-    private int bpm;
-    private int energy;
-    private int danceability;
-    private int loudness;
-    private int liveness;
-    private Comparator<Song> comparator;
-    
+
+    private final String title;
+    private final String artist;
+    private final String genres;
+    private final long attributes;
+
     // constructors
-    
-    public Song(String title,
-		String artist,
-		String genre,
-		int year,
-		int bpm,
-		int energy,
-		int danceability,
-		int loudness,
-		int liveness,
-		Comparator<Song> comparator) {
-	this.title = title;
-	this.artist = artist;
-	this.genres = genres;
-	this.year = year;
-	this.bpm = bpm;
-	this.energy = energy;
-	this.danceability = danceability;
-	this.loudness = loudness;
-	this.liveness = liveness;
-	this.comparator = comparator;
-    }
-    
+
+    /**
+     * Creates a song from the value of each of its attributes.
+     * @throws IllegalArgumentException when a numeric attribute does not fit the
+     *     packed representation: year and loudness are signed 16 and 8 bit values, bpm
+     *     is an unsigned 16 bit value, and energy, danceability and liveness are
+     *     unsigned 8 bit values
+     */
     public Song(String title,
 		String artist,
 		String genre,
@@ -52,37 +42,86 @@ public class Song implements Comparable<Song> {
 		int energy,
 		int danceability,
 		int loudness,
-		int liveness) { // no comparator, defaults to null
+		int liveness) {
 	this(title,
 	     artist,
 	     genre,
-	     year,
-	     bpm,
-	     energy,
-	     danceability,
-	     loudness,
-	     liveness,
-	     null);
+	     pack(year, bpm, energy, danceability, loudness, liveness));
+    }
+
+    /**
+     * Creates a song from numeric attributes that were already packed by pack.
+     * Subclasses that keep their data elsewhere may pass null and 0 here, as long as
+     * they override every accessor.
+     */
+    public Song(String title, String artist, String genre, long attributes) {
+	this.title = title;
+	this.artist = artist;
+	this.genres = genre;
+	this.attributes = attributes;
     }
 
     // accessors
-    
-    public String getTitle() { return title; } 
-    public String getArtist() { return artist; } 
-    public String getGenres() { return genres; } 
-    public int getYear() { return year; } 
-    public int getBPM() { return bpm; } 
-    public int getEnergy() { return energy; } 
-    public int getDanceability() { return danceability; } 
-    public int getLoudness() { return loudness; } 
-    public int getLiveness() { return liveness; }
+
+    public String getTitle() { return title; }
+    public String getArtist() { return artist; }
+    public String getGenres() { return genres; }
+    public int getYear() { return yearOf(attributes); }
+    public int getBPM() { return bpmOf(attributes); }
+    public int getEnergy() { return energyOf(attributes); }
+    public int getDanceability() { return danceabilityOf(attributes); }
+    public int getLoudness() { return loudnessOf(attributes); }
+    public int getLiveness() { return livenessOf(attributes); }
+    public long getPackedAttributes() { return attributes; }
+
+    // packing
+
+    /**
+     * Packs the numeric attributes of a song into a single long.
+     * @return the packed attributes
+     * @throws IllegalArgumentException when an attribute is out of range for its field
+     */
+    public static long pack(int year,
+			    int bpm,
+			    int energy,
+			    int danceability,
+			    int loudness,
+			    int liveness) {
+	return field("year", year, Short.MIN_VALUE, Short.MAX_VALUE, 0xFFFF, YEAR_SHIFT)
+	    | field("bpm", bpm, 0, 0xFFFF, 0xFFFF, BPM_SHIFT)
+	    | field("energy", energy, 0, 0xFF, 0xFF, ENERGY_SHIFT)
+	    | field("danceability", danceability, 0, 0xFF, 0xFF, DANCEABILITY_SHIFT)
+	    | field("loudness", loudness, Byte.MIN_VALUE, Byte.MAX_VALUE, 0xFF, LOUDNESS_SHIFT)
+	    | field("liveness", liveness, 0, 0xFF, 0xFF, LIVENESS_SHIFT);
+    }
+
+    // unpacking, for storage that keeps packed attributes outside of a Song
+
+    public static int yearOf(long attributes) { return (short) (attributes >>> YEAR_SHIFT); }
+    public static int bpmOf(long attributes) { return (int) (attributes >>> BPM_SHIFT) & 0xFFFF; }
+    public static int energyOf(long attributes) { return (int) (attributes >>> ENERGY_SHIFT) & 0xFF; }
+    public static int danceabilityOf(long attributes) {
+	return (int) (attributes >>> DANCEABILITY_SHIFT) & 0xFF;
+    }
+    public static int loudnessOf(long attributes) { return (byte) (attributes >>> LOUDNESS_SHIFT); }
+    public static int livenessOf(long attributes) {
+	return (int) (attributes >>> LIVENESS_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Checks that value is between min and max, and returns its low bits shifted into
+     * position within the packed attributes.
+     */
+    private static long field(String name, int value, int min, int max, int mask, int shift) {
+	if(value < min || value > max)
+	    throw new IllegalArgumentException(name + " " + value + " is outside of "
+					       + min + " to " + max);
+	return ((long) (value & mask)) << shift;
+    }
 
     // comparisons
-    
+
     public int compareTo(Song other) {
-	if(this.comparator != null)
-	    return this.comparator.compare(this,other);
-	else
-	    return this.title.compareTo(other.title);
+	return this.getTitle().compareTo(other.getTitle());
     }
 }
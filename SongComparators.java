@@ -0,0 +1,44 @@
+import java.util.Comparator;
+
+/**
+ * This class holds the comparators used to order songs by their numeric attributes.
+ * Every comparator is built on comparingInt, so no attribute is boxed into an Integer
+ * during a comparison, and songs with equal attribute values are ordered by their title.
+ */
+public final class SongComparators {
+
+    // orders songs by title alone, using Song.compareTo so songs that compare titles
+    // without decoding them, like MappedSong, can do so
+    public static final Comparator<Song> BY_TITLE = Comparator.naturalOrder();
+
+    // orders songs by ascending year, ties broken by title
+    public static final Comparator<Song> BY_YEAR =
+        Comparator.comparingInt(Song::getYear).thenComparing(BY_TITLE);
+
+    // orders songs by descending year (most recent first), ties broken by title
+    public static final Comparator<Song> BY_YEAR_DESCENDING =
+        Comparator.comparingInt(Song::getYear).reversed().thenComparing(BY_TITLE);
+
+    // orders songs by ascending bpm, ties broken by title
+    public static final Comparator<Song> BY_BPM =
+        Comparator.comparingInt(Song::getBPM).thenComparing(BY_TITLE);
+
+    // orders songs by ascending energy, ties broken by title
+    public static final Comparator<Song> BY_ENERGY =
+        Comparator.comparingInt(Song::getEnergy).thenComparing(BY_TITLE);
+
+    // orders songs by ascending danceability, ties broken by title
+    public static final Comparator<Song> BY_DANCEABILITY =
+        Comparator.comparingInt(Song::getDanceability).thenComparing(BY_TITLE);
+
+    // orders songs by ascending loudness, ties broken by title
+    public static final Comparator<Song> BY_LOUDNESS =
+        Comparator.comparingInt(Song::getLoudness).thenComparing(BY_TITLE);
+
+    // orders songs by ascending liveness, ties broken by title
+    public static final Comparator<Song> BY_LIVENESS =
+        Comparator.comparingInt(Song::getLiveness).thenComparing(BY_TITLE);
+
+    // only static comparators, no instances
+    private SongComparators() { }
+}
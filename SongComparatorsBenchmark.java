@@ -0,0 +1,49 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the time and memory allocated when sorting a large list of songs with the
+ * boxing comparators Backend used to build (Comparator.comparing) compared to the
+ * primitive comparators in SongComparators. Songs are generated from the distribution
+ * of songs.csv, see SongDistribution, and measured with Benchmark.
+ *
+ * Run with: java SongComparatorsBenchmark [sizes]
+ */
+public class SongComparatorsBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        SongDistribution distribution = SongDistribution.of("songs.csv");
+        Benchmark benchmark = new Benchmark();
+        for (int size : Benchmark.sizes(args, "1000000")) {
+            List<Song> songs = distribution.songs(size, new Random(400));
+            benchmark.header("Sorting " + size + " songs");
+            // the boxed orderings break ties on title too, so both sorts do the same work
+            run(benchmark, "energy, boxed", songs,
+                Comparator.comparing(Song::getEnergy).thenComparing(Song::getTitle));
+            run(benchmark, "energy, primitive", songs, SongComparators.BY_ENERGY);
+            run(benchmark, "year desc, boxed", songs,
+                Comparator.comparing(Song::getYear).reversed().thenComparing(Song::getTitle));
+            run(benchmark, "year desc, primitive", songs, SongComparators.BY_YEAR_DESCENDING);
+        }
+        System.out.println("checksum " + benchmark.checksum());
+    }
+
+    /**
+     * Measures sorting copies of songs with the comparator provided. The copies are made
+     * before timing, so only the sort itself is measured.
+     * @param benchmark the harness that measures and prints the result
+     * @param name the label printed with the results
+     * @param songs the songs to sort, left unchanged
+     * @param comparator the ordering to sort by
+     */
+    private static void run(Benchmark benchmark, String name, List<Song> songs,
+                            Comparator<Song> comparator) {
+        benchmark.measure(name, songs.size(), () -> new ArrayList<>(songs), copy -> {
+            copy.sort(comparator);
+            return copy.get(0).getEnergy();
+        });
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * This class counts songs by energy and danceability in constant time. Both attributes
+ * are stored in 8 bits (see Song), so every song falls in one cell of a 256 by 256 grid.
+ * The index keeps prefix sums over that grid: the number of songs with energy below e
+ * and danceability of at least d, for every e and d. Any count of songs with energy in a
+ * range and danceability above a threshold is then the difference of two sums.
+ */
+public class SongCountIndex {
+
+    // number of distinct energy and danceability values, plus one for the bound past them
+    private static final int SIDE = 257;
+
+    // sums[e * SIDE + d] is the number of songs with energy < e and danceability >= d
+    private final int[] sums = new int[SIDE * SIDE];
+
+    /**
+     * Builds the index over the provided songs.
+     * @param songs the songs to count
+     */
+    public SongCountIndex(Iterable<Song> songs) {
+        // count the songs in each cell, shifted one row so row 0 stays empty
+        for (Song song : songs) {
+            sums[(song.getEnergy() + 1) * SIDE + song.getDanceability()]++;
+        }
+        // accumulate down the energy rows and back across the danceability columns
+        for (int e = 1; e < SIDE; e++) {
+            int row = e * SIDE;
+            int previousRow = row - SIDE;
+            int danceable = 0;
+            for (int d = SIDE - 1; d >= 0; d--) {
+                danceable += sums[row + d];
+                sums[row + d] = danceable + sums[previousRow + d];
+            }
+        }
+    }
+
+    /**
+     * Counts the songs with energy from low to high, inclusive, and danceability larger
+     * than threshold.
+     * @param low the minimum energy, or null for no minimum
+     * @param high the maximum energy, or null for no maximum
+     * @param threshold songs must have a larger danceability than this, or null for no filter
+     * @return the number of such songs
+     */
+    public int count(Integer low, Integer high, Integer threshold) {
+        int lowRow = clamp(low == null ? 0 : low);
+        int highRow = clamp(high == null ? SIDE : high + 1L);
+        int column = clamp(threshold == null ? 0 : threshold + 1L);
+        if (lowRow >= highRow) {
+            return 0;
+        }
+        return sums[highRow * SIDE + column] - sums[lowRow * SIDE + column];
+    }
+
+    /**
+     * @return value limited to a valid row or column of the sums
+     */
+    private static int clamp(long value) {
+        return (int) Math.max(0, Math.min(SIDE - 1, value));
+    }
+}
@@ -0,0 +1,141 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class writes csv files of generated songs, of any size, with the same header as
+ * a sample file such as songs.csv. Rows are drawn from a SongDistribution, so every
+ * column, including year, bpm, nrgy, dnce, dB and live, and the columns songs don't
+ * hold, like val and dur, keeps the same distribution as the sample. Each title is a
+ * title from the sample followed by the row number, so titles are unique, and sampled
+ * titles that contain commas, like "Hey, Soul Sister", stay quoted.
+ *
+ * Run with: java SongCsvGenerator rows output [sample] [seed], for example
+ * java SongCsvGenerator 100000000 songs-100m.csv songs.csv 400
+ */
+public class SongCsvGenerator {
+
+    private final SongDistribution distribution;
+
+    // the index within SongDistribution.SONG_COLUMNS of each column written, or -1 for
+    // the columns songs don't hold
+    private final int[] songColumns;
+
+    /**
+     * Creates a generator from the songs of a sample csv file.
+     * @param sample the name of the csv file to sample values from
+     * @throws IOException when there is trouble finding/reading the file
+     * @throws IllegalArgumentException when the file has no songs
+     */
+    public SongCsvGenerator(String sample) throws IOException {
+        this(SongDistribution.of(sample));
+    }
+
+    /**
+     * Creates a generator that writes songs drawn from a distribution.
+     * @param distribution the distribution songs are drawn from
+     */
+    public SongCsvGenerator(SongDistribution distribution) {
+        this.distribution = distribution;
+        List<String> columns = distribution.getColumns();
+        songColumns = new int[columns.size()];
+        for (int column = 0; column < songColumns.length; column++) {
+            songColumns[column] = SongDistribution.SONG_COLUMNS.indexOf(columns.get(column));
+        }
+    }
+
+    /**
+     * Writes the header and rows of generated songs.
+     * @param out where the csv text is written
+     * @param rows the number of songs to generate
+     * @param random the source of the values chosen
+     * @throws IOException when there is trouble writing
+     */
+    public void write(Writer out, long rows, Random random) throws IOException {
+        StringBuilder line = new StringBuilder(256);
+        List<String> columns = distribution.getColumns();
+        for (int column = 0; column < columns.size(); column++) {
+            if (column > 0) {
+                line.append(',');
+            }
+            appendField(line, columns.get(column));
+        }
+        line.append('\n');
+        out.append(line);
+
+        for (long row = 0; row < rows; row++) {
+            Song song = distribution.next(random);
+            line.setLength(0);
+            for (int column = 0; column < songColumns.length; column++) {
+                if (column > 0) {
+                    line.append(',');
+                }
+                // in the order of SongDistribution.SONG_COLUMNS
+                switch (songColumns[column]) {
+                    case 0: appendField(line, song.getTitle() + " " + row); break;
+                    case 1: appendField(line, song.getArtist()); break;
+                    case 2: appendField(line, song.getGenres()); break;
+                    case 3: line.append(song.getYear()); break;
+                    case 4: line.append(song.getBPM()); break;
+                    case 5: line.append(song.getEnergy()); break;
+                    case 6: line.append(song.getDanceability()); break;
+                    case 7: line.append(song.getLoudness()); break;
+                    case 8: line.append(song.getLiveness()); break;
+                    default: appendField(line, distribution.nextValue(column, random)); break;
+                }
+            }
+            line.append('\n');
+            out.append(line);
+        }
+    }
+
+    /**
+     * Writes a csv file of generated songs, compressed with gzip if filename ends in .gz.
+     * @param filename the name of the file to create or replace
+     * @param rows the number of songs to generate
+     * @param seed the seed of the values chosen, so the same file can be generated again
+     * @throws IOException when there is trouble writing the file
+     */
+    public void write(String filename, long rows, long seed) throws IOException {
+        try (BufferedWriter out = filename.endsWith(".gz")
+                ? new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(
+                    Files.newOutputStream(Paths.get(filename)), 1 << 16), StandardCharsets.UTF_8))
+                : Files.newBufferedWriter(Paths.get(filename), StandardCharsets.UTF_8)) {
+            write(out, rows, new Random(seed));
+        }
+    }
+
+    /**
+     * Appends a string field to a line, quoted if it contains a comma. SongRowParser
+     * drops every quote and has no way to escape one, so quotes in the value are dropped
+     * here too, and the field reads back as the value SongRowParser would have read.
+     */
+    private static void appendField(StringBuilder line, String value) {
+        if (value.indexOf('"') >= 0) {
+            value = value.replace("\"", "");
+        }
+        if (value.indexOf(',') < 0) {
+            line.append(value);
+        } else {
+            line.append('"').append(value).append('"');
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java SongCsvGenerator rows output [sample] [seed]");
+            return;
+        }
+        long rows = Long.parseLong(args[0]);
+        String sample = args.length > 2 ? args[2] : "songs.csv";
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 400;
+        new SongCsvGenerator(sample).write(args[1], rows, seed);
+    }
+}
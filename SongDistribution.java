@@ -0,0 +1,190 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class generates songs whose attributes follow the values found in a sample csv
+ * file, such as songs.csv. Each attribute of a generated song is drawn independently
+ * from the values of that attribute in the sample, so every attribute keeps the same
+ * distribution as the sample, while catalogs of any size can be created from it. Titles,
+ * artists and genres are drawn from the sample in the same way, so generated songs share
+ * those strings rather than each holding their own.
+ * <p>
+ * A distribution read from a csv file also keeps the values of the file's columns that
+ * songs don't hold, such as val and dur in songs.csv, so files generated from it can
+ * have the same columns as the sample, see SongCsvGenerator.
+ */
+public class SongDistribution {
+
+    // the names of the columns each song holds, in the order of songs.csv
+    public static final List<String> SONG_COLUMNS = List.of("title", "artist", "top genre",
+        "year", "bpm", "nrgy", "dnce", "dB", "live");
+
+    // the columns of the sample, in its order, and the values found in each column songs
+    // don't hold, or null for the columns they do
+    private final String[] columns;
+    private final String[][] otherValues;
+
+    private final String[] titles;
+    private final String[] artists;
+    private final String[] genres;
+    private final int[] years;
+    private final int[] bpms;
+    private final int[] energies;
+    private final int[] danceabilities;
+    private final int[] loudnesses;
+    private final int[] livenesses;
+
+    /**
+     * Creates a distribution from the songs in a sample.
+     * @param sample the songs whose attribute values are drawn from, at least one
+     * @throws IllegalArgumentException when the sample is empty
+     */
+    public SongDistribution(Iterable<Song> sample) {
+        this(sample, SONG_COLUMNS.toArray(new String[0]), new String[SONG_COLUMNS.size()][]);
+    }
+
+    /**
+     * Creates a distribution from the songs in a sample, and the values of the sample's
+     * other columns.
+     * @param columns the names of the sample's columns, in its order
+     * @param otherValues the values of each column songs don't hold, by column, or null
+     *                    for the columns they do
+     */
+    private SongDistribution(Iterable<Song> sample, String[] columns, String[][] otherValues) {
+        this.columns = columns;
+        this.otherValues = otherValues;
+        List<Song> songs = new ArrayList<>();
+        for (Song song : sample) {
+            songs.add(song);
+        }
+        if (songs.isEmpty()) {
+            throw new IllegalArgumentException("Cannot sample from an empty catalog");
+        }
+        int count = songs.size();
+        titles = new String[count];
+        artists = new String[count];
+        genres = new String[count];
+        years = new int[count];
+        bpms = new int[count];
+        energies = new int[count];
+        danceabilities = new int[count];
+        loudnesses = new int[count];
+        livenesses = new int[count];
+        for (int i = 0; i < count; i++) {
+            Song song = songs.get(i);
+            titles[i] = song.getTitle();
+            artists[i] = song.getArtist();
+            genres[i] = song.getGenres();
+            years[i] = song.getYear();
+            bpms[i] = song.getBPM();
+            energies[i] = song.getEnergy();
+            danceabilities[i] = song.getDanceability();
+            loudnesses[i] = song.getLoudness();
+            livenesses[i] = song.getLiveness();
+        }
+    }
+
+    /**
+     * Creates a distribution from the songs in a csv file, read with Backend.readData.
+     * @param filename the csv file holding the sample songs
+     * @return the distribution of those songs
+     * @throws IOException when there is trouble finding/reading the file
+     */
+    public static SongDistribution of(String filename) throws IOException {
+        IterableSortedCollection<Song> sample = new ArrayRedBlackTree<>();
+        new Backend(sample).readData(filename);
+        if (!filename.endsWith(".csv")) {
+            // only the columns of songs are read from compressed samples
+            return new SongDistribution(sample);
+        }
+
+        // read the values of the columns Backend doesn't read
+        String[] columns;
+        List<List<String>> values = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(filename),
+                StandardCharsets.UTF_8)) {
+            columns = SongRowParser.splitCSV(in.readLine());
+            for (int column = 0; column < columns.length; column++) {
+                values.add(SONG_COLUMNS.contains(columns[column]) ? null : new ArrayList<>());
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] fields = SongRowParser.splitCSV(line);
+                for (int column = 0; column < columns.length && column < fields.length; column++) {
+                    if (values.get(column) != null) {
+                        values.get(column).add(fields[column]);
+                    }
+                }
+            }
+        }
+        String[][] otherValues = new String[columns.length][];
+        for (int column = 0; column < columns.length; column++) {
+            List<String> columnValues = values.get(column);
+            if (columnValues != null) {
+                // a column no row has a value for is written empty
+                otherValues[column] = columnValues.isEmpty()
+                    ? new String[] { "" } : columnValues.toArray(new String[0]);
+            }
+        }
+        return new SongDistribution(sample, columns, otherValues);
+    }
+
+    /**
+     * @return the names of the sample's columns, in its order, which are the columns of
+     * songs alone for a distribution created from songs
+     */
+    public List<String> getColumns() {
+        return List.of(columns);
+    }
+
+    /**
+     * Draws a value of a column songs don't hold from the values of that column in the
+     * sample.
+     * @param column the index of the column within getColumns
+     * @param random the source of the choice made
+     * @return the value
+     * @throws IllegalArgumentException when songs hold the column
+     */
+    public String nextValue(int column, Random random) {
+        String[] values = otherValues[column];
+        if (values == null) {
+            throw new IllegalArgumentException("Songs hold column " + columns[column]
+                + ", see next");
+        }
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Generates one song.
+     * @param random the source of the choices made
+     * @return a song with each attribute drawn from the sample
+     */
+    public Song next(Random random) {
+        int count = titles.length;
+        return new Song(titles[random.nextInt(count)], artists[random.nextInt(count)],
+            genres[random.nextInt(count)], years[random.nextInt(count)],
+            bpms[random.nextInt(count)], energies[random.nextInt(count)],
+            danceabilities[random.nextInt(count)], loudnesses[random.nextInt(count)],
+            livenesses[random.nextInt(count)]);
+    }
+
+    /**
+     * Generates a catalog of songs.
+     * @param count the number of songs to generate
+     * @param random the source of the choices made
+     * @return the songs, in the order generated
+     */
+    public List<Song> songs(int count, Random random) {
+        List<Song> songs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            songs.add(next(random));
+        }
+        return songs;
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.List;
+
+/**
+ * This class holds one page of song titles from a range query, along with the cursor
+ * that continues the query after the last title on this page.
+ */
+public class SongPage {
+
+    private final List<String> titles;
+    private final Cursor next;
+
+    /**
+     * Creates a page of results.
+     * @param titles the titles on this page, in order
+     * @param next the cursor for the following page, or null if this is the last page
+     */
+    public SongPage(List<String> titles, Cursor next) {
+        this.titles = titles;
+        this.next = next;
+    }
+
+    /**
+     * @return the titles on this page, in order
+     */
+    public List<String> getTitles() { return titles; }
+
+    /**
+     * @return the cursor that continues the query after this page, or null when no more
+     * songs match the query
+     */
+    public Cursor getNext() { return next; }
+
+    /**
+     * @return true if more songs follow this page, and false otherwise
+     */
+    public boolean hasNext() { return next != null; }
+
+    /**
+     * The position in a range query after the last song returned so far. Range results
+     * are ordered by energy and then title, so a position is the energy and title of the
+     * last song returned, and how many songs with that same energy and title had been
+     * returned, for catalogs that repeat a title at the same energy.
+     */
+    public static class Cursor {
+
+        private final int energy;
+        private final String title;
+        private final int repeats;
+
+        /**
+         * Creates a cursor positioned after the repeats-th song with this energy and title.
+         */
+        public Cursor(int energy, String title, int repeats) {
+            this.energy = energy;
+            this.title = title;
+            this.repeats = repeats;
+        }
+
+        public int getEnergy() { return energy; }
+        public String getTitle() { return title; }
+        public int getRepeats() { return repeats; }
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class turns the rows of a csv file into songs, finding each column it needs by its
+ * name in the file's header, so columns can come in any order and extra columns are
+ * ignored. Artists and genres are interned into the dictionaries it is given. A parser
+ * holds no state that changes while parsing, so many threads can parse rows of the same
+ * file with one parser.
+ */
+public class SongRowParser {
+
+    private final StringDictionary artists;
+    private final StringDictionary genres;
+
+    // the index of each required column
+    private final int titleIndex;
+    private final int artistIndex;
+    private final int genreIndex;
+    private final int yearIndex;
+    private final int bpmIndex;
+    private final int energyIndex;
+    private final int danceabilityIndex;
+    private final int loudnessIndex;
+    private final int livenessIndex;
+
+    // the number of columns a row needs to hold every required column
+    private final int columnCount;
+
+    /**
+     * Creates a parser for the rows that follow this header.
+     * @param header the first line of a csv file
+     * @param artists the dictionary that artists are interned into
+     * @param genres the dictionary that genres are interned into
+     * @throws IOException when the header is missing one of the required columns
+     */
+    public SongRowParser(String header, StringDictionary artists, StringDictionary genres)
+            throws IOException {
+        this.artists = artists;
+        this.genres = genres;
+
+        //get the index of each required field
+        List<String> fields = Arrays.asList(splitCSV(header));
+        titleIndex = fields.indexOf("title");
+        artistIndex = fields.indexOf("artist");
+        genreIndex = fields.indexOf("top genre");
+        yearIndex = fields.indexOf("year");
+        bpmIndex = fields.indexOf("bpm");
+        energyIndex = fields.indexOf("nrgy");
+        danceabilityIndex = fields.indexOf("dnce");
+        loudnessIndex = fields.indexOf("dB");
+        livenessIndex = fields.indexOf("live");
+
+        // Make sure all required fields are there
+        if (titleIndex == -1 || artistIndex == -1 || genreIndex == -1 || yearIndex == -1 ||
+            bpmIndex == -1 || energyIndex == -1 || danceabilityIndex == -1 ||
+            loudnessIndex == -1 || livenessIndex == -1) {
+            throw new IOException("Missing one or more required fields in the file.");
+        }
+        int lastIndex = 0;
+        for (int index : new int[] { titleIndex, artistIndex, genreIndex, yearIndex, bpmIndex,
+                                     energyIndex, danceabilityIndex, loudnessIndex, livenessIndex }) {
+            lastIndex = Math.max(lastIndex, index);
+        }
+        columnCount = lastIndex + 1;
+    }
+
+    /**
+     * Parses one row of the file.
+     * @param line the row, without its line ending
+     * @return the song in the row
+     * @throws NumberFormatException when a number can't be parsed
+     * @throws IllegalArgumentException when the row is missing a column, or a number is
+     *                                  out of range for its attribute
+     */
+    public Song parse(String line) {
+        String[] songFields = splitCSV(line);
+        if (songFields.length < columnCount) {
+            throw new IllegalArgumentException("Expected at least " + columnCount
+                + " columns, but found " + songFields.length);
+        }
+        return new Song(songFields[titleIndex],
+                        artists.intern(songFields[artistIndex]),
+                        genres.intern(songFields[genreIndex]),
+                        number(songFields[yearIndex], "year"),
+                        number(songFields[bpmIndex], "bpm"),
+                        number(songFields[energyIndex], "nrgy"),
+                        number(songFields[danceabilityIndex], "dnce"),
+                        number(songFields[loudnessIndex], "dB"),
+                        number(songFields[livenessIndex], "live"));
+    }
+
+    /**
+     * @return the whole number in field
+     * @throws NumberFormatException naming the column, when field is not a whole number
+     */
+    private static int number(String field, String column) {
+        try {
+            return Integer.parseInt(field);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(column + " is not a whole number: " + field);
+        }
+    }
+
+    /**
+     * A custom method to split CSV lines, accounting for commas inside quoted fields.
+     */
+    static String[] splitCSV(String line) {
+        boolean insideQuote = false;
+        StringBuilder field = new StringBuilder();
+        ArrayList<String> fields = new ArrayList<>();
+
+        for (int i = 0; i < line.length(); i++) {
+            char currentChar = line.charAt(i);
+
+            if (currentChar == '"') {
+                // Toggle whether we're inside a quoted string
+                insideQuote = !insideQuote;
+            } else if (currentChar == ',' && !insideQuote) {
+                // If it is  a comma and we're not inside quotes, it marks the end of a field
+                fields.add(field.toString().trim());
+                field.setLength(0); // Reset the field builder
+            } else {
+                // append the character to the current field
+                field.append(currentChar);
+            }
+        }
+
+        fields.add(field.toString().trim());
+
+        // convert the list to an array
+        return fields.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,229 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * This class serves the queries of a Backend as JSON over HTTP, so many clients can query
+ * one loaded catalog at once. Every query is described completely by its request, rather
+ * than by a range and filter left behind by earlier calls, so clients never see each
+ * other's state. Queries take these optional parameters, where a missing value means no
+ * bound:
+ * <pre>
+ * GET /range?low=40&amp;high=60&amp;threshold=50&amp;limit=100
+ *     {"count":2,"titles":["Hello","Pom Poms"]}     songs by Energy, then title
+ * GET /top?k=5&amp;low=40&amp;high=60&amp;threshold=50
+ *     {"count":5,"titles":[...]}                    the k most recent songs, latest first
+ * GET /count?low=40&amp;high=60&amp;threshold=50
+ *     {"count":37}                                  the number of songs /range would return
+ * </pre>
+ * Invalid parameters get a 400 response like {"error":"..."}, and any other path, such as
+ * /range/x, gets a 404 response. The range and filter of the menus' getRange and setFilter
+ * are both parameters of /range.
+ *
+ * Run with: java SongServer [port] [csv file], for example java SongServer 8080 songs.csv
+ */
+public class SongServer {
+
+    // the largest k accepted by /top
+    public static final int MAX_TOP = 1000;
+
+    private final Backend backend;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server for the backend, listening on port of the local host. Call start
+     * to begin serving requests.
+     * @param backend the backend whose songs are queried, which should not load more
+     *                songs while serving
+     * @param port the port to listen on, or 0 for any free port
+     * @throws IOException when the port cannot be opened
+     */
+    public SongServer(Backend backend, int port) throws IOException {
+        this.backend = backend;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        // contexts match every path they prefix, so respond answers only their own path,
+        // and the root context answers the paths no other context prefixes
+        server.createContext("/", exchange -> respond(exchange, null));
+        server.createContext("/range", exchange -> respond(exchange, this::range));
+        server.createContext("/top", exchange -> respond(exchange, this::top));
+        server.createContext("/count", exchange -> respond(exchange, this::count));
+    }
+
+    /**
+     * Returns an executor that runs each request on a new virtual thread when the JDK
+     * has them, and otherwise on a pool of platform threads that grows with demand.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Starts serving requests on a background thread.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops serving requests, waiting up to delay seconds for requests being served.
+     */
+    public void stop(int delay) {
+        server.stop(delay);
+        executor.shutdown();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * A query that reads its parameters and returns the body of a JSON response.
+     */
+    private interface Query {
+        String run(Map<String, String> parameters);
+    }
+
+    /**
+     * Runs a query for a request, and sends its result, or a JSON error.
+     * @param query the query of the request's context, or null for a 404 response
+     */
+    private void respond(HttpExchange exchange, Query query) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            String path = exchange.getRequestURI().getPath();
+            if (query == null || !path.equals(exchange.getHttpContext().getPath())) {
+                status = 404;
+                body = error("No query at " + path);
+            } else if (!exchange.getRequestMethod().equals("GET")) {
+                status = 405;
+                body = error("Only GET requests are supported");
+            } else {
+                body = query.run(parameters(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (IllegalArgumentException e) {
+            // includes NumberFormatException from parameters that are not whole numbers
+            status = 400;
+            body = error(e.getMessage());
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(e.toString());
+        }
+
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private String range(Map<String, String> parameters) {
+        Integer limit = integer(parameters, "limit");
+        if (limit != null && limit < 0) {
+            throw new IllegalArgumentException("limit cannot be negative: " + limit);
+        }
+        List<String> titles = backend.stream(integer(parameters, "low"),
+                integer(parameters, "high"), integer(parameters, "threshold"))
+            .limit(limit == null ? Long.MAX_VALUE : limit)
+            .map(Song::getTitle)
+            .collect(Collectors.toList());
+        return titles(titles);
+    }
+
+    private String top(Map<String, String> parameters) {
+        Integer k = integer(parameters, "k");
+        if (k != null && (k < 1 || k > MAX_TOP)) {
+            throw new IllegalArgumentException("k must be from 1 to " + MAX_TOP + ": " + k);
+        }
+        return titles(backend.mostRecent(integer(parameters, "low"), integer(parameters, "high"),
+            integer(parameters, "threshold"), k == null ? 5 : k));
+    }
+
+    private String count(Map<String, String> parameters) {
+        int count = backend.countInRange(integer(parameters, "low"), integer(parameters, "high"),
+            integer(parameters, "threshold"));
+        return "{\"count\":" + count + "}";
+    }
+
+    /**
+     * @return the JSON body holding titles and their count
+     */
+    private static String titles(List<String> titles) {
+        StringBuilder json = new StringBuilder(32 + titles.size() * 24);
+        json.append("{\"count\":").append(titles.size()).append(",\"titles\":");
+        Json.appendStrings(json, titles);
+        return json.append('}').toString();
+    }
+
+    private static String error(String message) {
+        return Json.appendString(new StringBuilder("{\"error\":"), message).append('}').toString();
+    }
+
+    /**
+     * @return the value of the named parameter, or null when it is missing or empty
+     * @throws NumberFormatException when the value is not a whole number
+     */
+    private static Integer integer(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException(name + " must be a whole number: " + value);
+        }
+    }
+
+    /**
+     * @return the parameters of a query string like "low=40&amp;high=60", by name
+     */
+    private static Map<String, String> parameters(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        String filename = args.length > 1 ? args[1] : "songs.csv";
+        Backend backend = new Backend(new IterableRedBlackTree<>());
+        backend.readData(filename);
+        backend.getMetrics().register("iSongly:type=Metrics");
+
+        SongServer server = new SongServer(backend, port);
+        server.start();
+        System.out.println("Serving " + filename + " on http://localhost:" + server.getPort());
+    }
+}
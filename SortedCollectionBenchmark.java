@@ -0,0 +1,71 @@
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares IterableRedBlackTree, ArrayRedBlackTree and BPlusTree holding songs ordered
+ * by energy. For each catalog size it measures inserting every song, iterating over the
+ * whole tree, and scanning the songs with energy from 40 to 60, the kind of range scan
+ * Backend.getRange performs. Songs are generated from the distribution of songs.csv, see
+ * SongDistribution, and measured with Benchmark.
+ *
+ * Run with: java SortedCollectionBenchmark [sizes], for example
+ * java -Xmx8g SortedCollectionBenchmark 10000,1000000,10000000
+ */
+public class SortedCollectionBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        SongDistribution distribution = SongDistribution.of("songs.csv");
+        Benchmark benchmark = new Benchmark();
+        for (int size : Benchmark.sizes(args, "10000,1000000,10000000")) {
+            List<Song> songs = distribution.songs(size, new Random(400));
+            benchmark.header(size + " songs");
+            run(benchmark, "IterableRedBlackTree", songs,
+                () -> new IterableRedBlackTree<>(SongComparators.BY_ENERGY));
+            run(benchmark, "ArrayRedBlackTree", songs,
+                () -> new ArrayRedBlackTree<>(SongComparators.BY_ENERGY));
+            run(benchmark, "BPlusTree", songs,
+                () -> new BPlusTree<>(SongComparators.BY_ENERGY, BPlusTree.DEFAULT_FANOUT));
+        }
+        System.out.println("checksum " + benchmark.checksum());
+    }
+
+    /**
+     * Measures filling new trees from the supplier with songs, and scanning a filled tree
+     * in full and over a range of energies.
+     */
+    private static void run(Benchmark benchmark, String name, List<Song> songs,
+                            Supplier<IterableSortedCollection<Song>> trees) {
+        int size = songs.size();
+        benchmark.measure(name + " insert", size, trees, tree -> {
+            for (Song song : songs) {
+                tree.insert(song);
+            }
+            return tree.size();
+        });
+
+        IterableSortedCollection<Song> tree = trees.get();
+        for (Song song : songs) {
+            tree.insert(song);
+        }
+        benchmark.measure(name + " scan", size, () -> {
+            long energy = 0;
+            for (Song song : tree) {
+                energy += song.getEnergy();
+            }
+            return energy;
+        });
+        benchmark.measure(name + " range", size, () -> {
+            tree.setIteratorMin(song -> Integer.compare(40, song.getEnergy()));
+            tree.setIteratorMax(song -> Integer.compare(60, song.getEnergy()));
+            long danceability = 0;
+            for (Song song : tree) {
+                danceability += song.getDanceability();
+            }
+            tree.setIteratorMin(null);
+            tree.setIteratorMax(null);
+            return danceability;
+        });
+    }
+}
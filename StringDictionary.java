@@ -0,0 +1,35 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class maps each distinct string value it is given to a single shared instance.
+ * Columns such as artist and top genre repeat the same few values across hundreds of
+ * rows, so interning them while loading keeps only one copy of each value in memory,
+ * and lets songs that share a value be compared by reference. Values can be interned
+ * from many threads at once, such as the parse threads of a CsvPipeline.
+ */
+public class StringDictionary {
+
+    // maps each value seen so far to its shared instance
+    private final ConcurrentHashMap<String, String> values = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared instance of value, adding value to the dictionary if no equal
+     * string has been interned before.
+     * @param value the string to intern, or null
+     * @return the shared instance equal to value, or null when value is null
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = values.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+
+    /**
+     * @return the number of distinct values in the dictionary
+     */
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * This class holds a snapshot of the shape of a red black tree, and of the work its
+ * inserts have done, as returned by RedBlackTree.diagnostics. A tree of n nodes that
+ * keeps the red black properties is at most 2 * log2(n + 1) nodes high, so comparing
+ * the height to that bound shows how balanced the tree is.
+ */
+public class TreeDiagnostics {
+
+    private final int nodeCount;
+    private final int redCount;
+    private final int height;
+    private final int blackHeight;
+    private final long insertCount;
+    private final long rotationCount;
+    private final long recolorCount;
+
+    /**
+     * Creates a snapshot of these values, see the getters for their meaning.
+     */
+    public TreeDiagnostics(int nodeCount, int redCount, int height, int blackHeight,
+                           long insertCount, long rotationCount, long recolorCount) {
+        this.nodeCount = nodeCount;
+        this.redCount = redCount;
+        this.height = height;
+        this.blackHeight = blackHeight;
+        this.insertCount = insertCount;
+        this.rotationCount = rotationCount;
+        this.recolorCount = recolorCount;
+    }
+
+    /**
+     * @return the number of nodes in the tree
+     */
+    public int getNodeCount() { return nodeCount; }
+
+    /**
+     * @return the number of red nodes in the tree
+     */
+    public int getRedCount() { return redCount; }
+
+    /**
+     * @return the number of black nodes in the tree
+     */
+    public int getBlackCount() { return nodeCount - redCount; }
+
+    /**
+     * @return the fraction of the nodes that are red, or 0 for an empty tree
+     */
+    public double getRedRatio() {
+        return nodeCount == 0 ? 0 : (double) redCount / nodeCount;
+    }
+
+    /**
+     * @return the number of nodes on the longest path from the root down to a leaf, or
+     * 0 for an empty tree
+     */
+    public int getHeight() { return height; }
+
+    /**
+     * @return the number of black nodes on every path from the root down to a missing
+     * child, or -1 if paths have different numbers of black nodes or a red node has a
+     * red child
+     */
+    public int getBlackHeight() { return blackHeight; }
+
+    /**
+     * @return the largest height a red black tree with this many nodes can have
+     */
+    public int getMaximumHeight() {
+        // the largest h with h <= 2 * log2(n + 1), that is with 2^h <= (n + 1)^2
+        long squared = (nodeCount + 1L) * (nodeCount + 1L);
+        int maximum = 0;
+        while ((1L << (maximum + 1)) <= squared) {
+            maximum++;
+        }
+        return maximum;
+    }
+
+    /**
+     * @return the number of values inserted since the tree was created
+     */
+    public long getInsertCount() { return insertCount; }
+
+    /**
+     * @return the number of rotations performed by inserts since the tree was created
+     */
+    public long getRotationCount() { return rotationCount; }
+
+    /**
+     * @return the number of node color changes made by inserts since the tree was created
+     */
+    public long getRecolorCount() { return recolorCount; }
+
+    /**
+     * @return the mean number of rotations per insert, or 0 if nothing was inserted
+     */
+    public double getRotationsPerInsert() {
+        return insertCount == 0 ? 0 : (double) rotationCount / insertCount;
+    }
+
+    @Override
+    public String toString() {
+        return "nodes=" + nodeCount + " red=" + redCount + " height=" + height
+            + " blackHeight=" + blackHeight + " inserts=" + insertCount
+            + " rotations=" + rotationCount + " recolors=" + recolorCount;
+    }
+}